@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import ch.tatool.data.DataContainer;
+
+/**
+ * DataContainer decorator that collects writes and passes them on to the decorated
+ * container in one go when flush is called.
+ * 
+ * Repeated writes to the same node and property are coalesced, only the last value is
+ * written. Reads return pending values, so users of this container see their own writes
+ * before the flush. Numeric values put through the typed methods are only converted to
+ * a String (if at all) when flushed.
+ * 
+ * This class is not thread-safe.
+ */
+public class BatchingDataContainer implements TypedDataContainer {
+
+	/** Decorated container. */
+	private DataContainer target;
+	
+	/** Pending writes, a null value removes the value. */
+	private Map<PropertyKey, Object> pending;
+	
+	public BatchingDataContainer(DataContainer target) {
+		this.target = target;
+		this.pending = new LinkedHashMap<PropertyKey, Object>();
+	}
+	
+	/** Get the decorated container. */
+	public DataContainer getTarget() {
+		return target;
+	}
+	
+	/** Returns the number of pending writes. */
+	public int getPendingCount() {
+		return pending.size();
+	}
+	
+	/** Writes all pending values to the decorated container. */
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<PropertyKey, Object> entry : pending.entrySet()) {
+			write(entry.getKey(), entry.getValue());
+		}
+		pending.clear();
+	}
+	
+	/** Discards all pending values. */
+	public void rollback() {
+		pending.clear();
+	}
+	
+	private void write(PropertyKey key, Object value) {
+		if (target instanceof TypedDataContainer) {
+			TypedDataContainer typed = (TypedDataContainer) target;
+			if (value instanceof Integer) {
+				typed.putIntValue(key.getNodeId(), key.getPropertyName(), (Integer) value);
+				return;
+			} else if (value instanceof Long) {
+				typed.putLongValue(key.getNodeId(), key.getPropertyName(), (Long) value);
+				return;
+			} else if (value instanceof Double) {
+				typed.putDoubleValue(key.getNodeId(), key.getPropertyName(), (Double) value);
+				return;
+			}
+		}
+		target.putValue(key.getNodeId(), key.getPropertyName(), value != null ? value.toString() : null);
+	}
+	
+	// DataContainer
+	
+	public String getValue(String nodeId, String propertyName) {
+		PropertyKey key = new PropertyKey(nodeId, propertyName);
+		if (pending.containsKey(key)) {
+			Object value = pending.get(key);
+			return value != null ? value.toString() : null;
+		}
+		return target.getValue(nodeId, propertyName);
+	}
+
+	public void putValue(String nodeId, String propertyName, String value) {
+		pending.put(new PropertyKey(nodeId, propertyName), value);
+	}
+	
+	// TypedDataContainer
+	
+	public boolean containsValue(String nodeId, String propertyName) {
+		PropertyKey key = new PropertyKey(nodeId, propertyName);
+		if (pending.containsKey(key)) {
+			return pending.get(key) != null;
+		}
+		if (target instanceof TypedDataContainer) {
+			return ((TypedDataContainer) target).containsValue(nodeId, propertyName);
+		}
+		return target.getValue(nodeId, propertyName) != null;
+	}
+
+	public int getIntValue(String nodeId, String propertyName, int defaultValue) {
+		PropertyKey key = new PropertyKey(nodeId, propertyName);
+		if (pending.containsKey(key)) {
+			Object value = pending.get(key);
+			if (value instanceof Integer) {
+				return (Integer) value;
+			}
+			return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+		}
+		if (target instanceof TypedDataContainer) {
+			return ((TypedDataContainer) target).getIntValue(nodeId, propertyName, defaultValue);
+		}
+		String value = target.getValue(nodeId, propertyName);
+		return value != null ? Integer.parseInt(value) : defaultValue;
+	}
+
+	public void putIntValue(String nodeId, String propertyName, int value) {
+		pending.put(new PropertyKey(nodeId, propertyName), value);
+	}
+
+	public long getLongValue(String nodeId, String propertyName, long defaultValue) {
+		PropertyKey key = new PropertyKey(nodeId, propertyName);
+		if (pending.containsKey(key)) {
+			Object value = pending.get(key);
+			if (value instanceof Long) {
+				return (Long) value;
+			}
+			return value != null ? Long.parseLong(value.toString()) : defaultValue;
+		}
+		if (target instanceof TypedDataContainer) {
+			return ((TypedDataContainer) target).getLongValue(nodeId, propertyName, defaultValue);
+		}
+		String value = target.getValue(nodeId, propertyName);
+		return value != null ? Long.parseLong(value) : defaultValue;
+	}
+
+	public void putLongValue(String nodeId, String propertyName, long value) {
+		pending.put(new PropertyKey(nodeId, propertyName), value);
+	}
+
+	public double getDoubleValue(String nodeId, String propertyName, double defaultValue) {
+		PropertyKey key = new PropertyKey(nodeId, propertyName);
+		if (pending.containsKey(key)) {
+			Object value = pending.get(key);
+			if (value instanceof Double) {
+				return (Double) value;
+			}
+			return value != null ? Double.parseDouble(value.toString()) : defaultValue;
+		}
+		if (target instanceof TypedDataContainer) {
+			return ((TypedDataContainer) target).getDoubleValue(nodeId, propertyName, defaultValue);
+		}
+		String value = target.getValue(nodeId, propertyName);
+		return value != null ? Double.parseDouble(value) : defaultValue;
+	}
+
+	public void putDoubleValue(String nodeId, String propertyName, double value) {
+		pending.put(new PropertyKey(nodeId, propertyName), value);
+	}
+}
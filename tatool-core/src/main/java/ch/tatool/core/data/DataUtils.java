@@ -19,6 +19,9 @@
 package ch.tatool.core.data;
 
 import java.io.UnsupportedEncodingException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
 import ch.tatool.data.DataContainer;
 import ch.tatool.data.DescriptivePropertyHolder;
@@ -28,6 +31,40 @@ import ch.tatool.data.Module;
 
 public class DataUtils {
 	
+	/** Format used to store dates as String values. */
+	public static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+	
+	/**
+	 * SimpleDateFormat is not thread-safe, but dates get written from timer threads as well
+	 * as from the event dispatch thread. Each thread therefore gets its own format object,
+	 * which is shared by all properties.
+	 */
+	private static final ThreadLocal<SimpleDateFormat> dateFormat = new ThreadLocal<SimpleDateFormat>() {
+		protected SimpleDateFormat initialValue() {
+			SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+			format.setLenient(false);
+			return format;
+		}
+	};
+	
+	/** Formats a date using the DATE_FORMAT pattern. */
+	public static String formatDate(Date date) {
+		return dateFormat.get().format(date);
+	}
+	
+	/**
+	 * Parses a date formatted using the DATE_FORMAT pattern.
+	 * 
+	 * @throws IllegalArgumentException if the String is not a valid date
+	 */
+	public static Date parseDate(String s) {
+		try {
+			return dateFormat.get().parse(s);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("Invalid date value: " + s, e);
+		}
+	}
+	
     /** Get a String from the binary module properties. */
     public static String getStringBinaryModuleProperty(Module module, String propertyName) {
     	try {
@@ -50,6 +87,75 @@ public class DataUtils {
     }
     
     
+    private static final char[] BASE64_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    
+    /** Encodes binary data into a Base64 String. */
+    public static String encodeBase64(byte[] data) {
+    	StringBuilder builder = new StringBuilder(((data.length + 2) / 3) * 4);
+    	for (int i = 0; i < data.length; i += 3) {
+    		int b = (data[i] & 0xff) << 16;
+    		if (i + 1 < data.length) {
+    			b |= (data[i + 1] & 0xff) << 8;
+    		}
+    		if (i + 2 < data.length) {
+    			b |= data[i + 2] & 0xff;
+    		}
+    		builder.append(BASE64_CHARS[(b >> 18) & 0x3f]);
+    		builder.append(BASE64_CHARS[(b >> 12) & 0x3f]);
+    		builder.append(i + 1 < data.length ? BASE64_CHARS[(b >> 6) & 0x3f] : '=');
+    		builder.append(i + 2 < data.length ? BASE64_CHARS[b & 0x3f] : '=');
+    	}
+    	return builder.toString();
+    }
+    
+    /**
+     * Decodes a Base64 String.
+     * 
+     * @throws IllegalArgumentException if the String is not valid Base64
+     */
+    public static byte[] decodeBase64(String s) {
+    	if (s.length() % 4 != 0) {
+    		throw new IllegalArgumentException("Invalid Base64 length: " + s.length());
+    	}
+    	int padding = 0;
+    	if (s.endsWith("==")) {
+    		padding = 2;
+    	} else if (s.endsWith("=")) {
+    		padding = 1;
+    	}
+    	byte[] data = new byte[s.length() / 4 * 3 - padding];
+    	int pos = 0;
+    	for (int i = 0; i < s.length(); i += 4) {
+    		int b = 0;
+    		for (int j = 0; j < 4; j++) {
+    			char c = s.charAt(i + j);
+    			b <<= 6;
+    			if (c != '=') {
+    				b |= base64Value(c);
+    			}
+    		}
+    		for (int j = 2; j >= 0 && pos < data.length; j--) {
+    			data[pos++] = (byte) (b >> (j * 8));
+    		}
+    	}
+    	return data;
+    }
+    
+    private static int base64Value(char c) {
+    	if (c >= 'A' && c <= 'Z') {
+    		return c - 'A';
+    	} else if (c >= 'a' && c <= 'z') {
+    		return c - 'a' + 26;
+    	} else if (c >= '0' && c <= '9') {
+    		return c - '0' + 52;
+    	} else if (c == '+') {
+    		return 62;
+    	} else if (c == '/') {
+    		return 63;
+    	}
+    	throw new IllegalArgumentException("Invalid Base64 character: " + c);
+    }
+    
     /** Removes all properties from the properties holder. */
     public static void clearPropertyHolder(PropertyHolder propertyHolder, Property<?>[] properties) {
 		for (Property<?> property : properties) {
@@ -20,15 +20,79 @@ package ch.tatool.core.data;
 
 import java.util.Date;
 
+import ch.tatool.data.DataContainer;
+
 /**
  * Date value property object
  * 
+ * Dates are stored either as String in the DataUtils.DATE_FORMAT format (default),
+ * or as epoch milliseconds (Date.getTime()), which avoids formatting the date on every write.
+ * 
  * @author Andre Locher
  */
 public class DateProperty extends GenericProperty<Date> {
 
+	/** Whether the date is stored as epoch milliseconds instead of a formatted String. */
+	private boolean storeEpochMillis = false;
+	
 	public DateProperty(String propertyName) {
 		super(propertyName, Date.class);
 	}
+	
+	public DateProperty(String propertyName, boolean storeEpochMillis) {
+		this(propertyName);
+		this.storeEpochMillis = storeEpochMillis;
+	}
+
+	public boolean isStoreEpochMillis() {
+		return storeEpochMillis;
+	}
 
+	public void setStoreEpochMillis(boolean storeEpochMillis) {
+		this.storeEpochMillis = storeEpochMillis;
+	}
+	
+	public void setValue(DataContainer dataContainer, String nodeId, Date value) {
+		if (value == null) {
+			clearValue(dataContainer, nodeId);
+		} else if (storeEpochMillis) {
+			long millis = value.getTime();
+			if (dataContainer instanceof TypedDataContainer) {
+				((TypedDataContainer) dataContainer).putLongValue(nodeId, getPropertyName(), millis);
+			} else {
+				setStringValue(dataContainer, nodeId, Long.toString(millis));
+			}
+		} else {
+			setStringValue(dataContainer, nodeId, DataUtils.formatDate(value));
+		}
+	}
+	
+	/**
+	 * Reads a date value. Both formats are accepted independent of the current storage
+	 * setting, so data written before switching the format can still be read.
+	 */
+	public Date getValue(DataContainer dataContainer, String nodeId, Date defaultValue) {
+		String value = getStringValue(dataContainer, nodeId);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (isEpoch(value)) {
+			return new Date(Long.parseLong(value));
+		}
+		return DataUtils.parseDate(value);
+	}
+	
+	/** Returns true if the value consists of digits only. */
+	private static boolean isEpoch(String value) {
+		if (value.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
 }
@@ -18,6 +18,9 @@
  ******************************************************************************/
 package ch.tatool.core.data;
 
+import ch.tatool.data.DataContainer;
+import ch.tatool.data.PropertyHolder;
+
 /**
  * Double value property object
  * 
@@ -29,4 +32,54 @@ public class DoubleProperty extends GenericProperty<Double> {
 		super(propertyName, Double.class);
 	}
 
+	// primitive access
+	
+	public double getValue(DataContainer dataContainer, PropertyHolder holder, double defaultValue) {
+		return getValue(dataContainer, getNodeId(holder), defaultValue);
+	}
+	
+	/** Get the value as primitive double, without creating a String if the container supports typed values. */
+	public double getValue(DataContainer dataContainer, String nodeId, double defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			return ((TypedDataContainer) dataContainer).getDoubleValue(nodeId, getPropertyName(), defaultValue);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		// Intentionally don't catch NumberFormatException
+		return (value != null) ? Double.parseDouble(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, PropertyHolder holder, double value) {
+		setValue(dataContainer, getNodeId(holder), value);
+	}
+	
+	/** Set the value as primitive double, without formatting a String if the container supports typed values. */
+	public void setValue(DataContainer dataContainer, String nodeId, double value) {
+		if (dataContainer instanceof TypedDataContainer) {
+			((TypedDataContainer) dataContainer).putDoubleValue(nodeId, getPropertyName(), value);
+		} else {
+			setStringValue(dataContainer, nodeId, Double.toString(value));
+		}
+	}
+	
+	// boxed access, routed through the primitive methods
+	
+	public Double getValue(DataContainer dataContainer, String nodeId, Double defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			TypedDataContainer typed = (TypedDataContainer) dataContainer;
+			if (! typed.containsValue(nodeId, getPropertyName())) {
+				return defaultValue;
+			}
+			return typed.getDoubleValue(nodeId, getPropertyName(), 0.0);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		return (value != null) ? Double.valueOf(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, String nodeId, Double value) {
+		if (value != null) {
+			setValue(dataContainer, nodeId, value.doubleValue());
+		} else {
+			clearValue(dataContainer, nodeId);
+		}
+	}
 }
@@ -18,11 +18,12 @@
  ******************************************************************************/
 package ch.tatool.core.data;
 
-import java.text.SimpleDateFormat;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.tatool.core.data.StringConverter.BinaryCodec;
+import ch.tatool.core.data.StringConverter.Codec;
+import ch.tatool.core.data.StringConverter.Converter;
 import ch.tatool.data.DataContainer;
 import ch.tatool.data.Property;
 import ch.tatool.data.PropertyHolder;
@@ -41,16 +42,20 @@ public abstract class GenericProperty<T> implements Property<T> {
 
 	private static Logger logger = LoggerFactory.getLogger(ObjectProperty.class);
 	
-	private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-	
 	private String propertyName;
 	private Class<T> propertyType;
+	
+	/** Converter for the property type, resolved once. */
+	private Converter<T> converter;
+	
+	/** Optional binary codec used instead of the converter. */
+	private BinaryCodec<T> binaryCodec;
 
 	/** Creates a new property object. */
 	public GenericProperty(String propertyName, Class<T> propertyType) {
 		this.propertyName = propertyName;
 		this.propertyType = propertyType;
-
+		this.converter = StringConverter.getConverter(propertyType);
 	}
 	
 	public String getPropertyName() {
@@ -61,6 +66,29 @@ public abstract class GenericProperty<T> implements Property<T> {
 		return propertyType;
 	}
 	
+	public BinaryCodec<T> getBinaryCodec() {
+		return binaryCodec;
+	}
+
+	/**
+	 * Set a binary codec to use for storing values in a DataContainer.
+	 * Values are then stored as Base64 encoded String of the binary representation.
+	 */
+	public void setBinaryCodec(BinaryCodec<T> binaryCodec) {
+		this.binaryCodec = binaryCodec;
+	}
+	
+	/**
+	 * Get the id under which the holder stores this property in a DataContainer.
+	 * Uses the cached key of KeyedPropertyHolder objects, and getId() for all others.
+	 */
+	protected String getNodeId(PropertyHolder holder) {
+		if (holder instanceof KeyedPropertyHolder) {
+			return ((KeyedPropertyHolder) holder).getPropertyKey(propertyName).getNodeId();
+		}
+		return holder.getId();
+	}
+	
 	// Checking whether set
 	
 	public boolean isSet(PropertyHolder holder) {
@@ -68,7 +96,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public boolean isSet(DataContainer dataContainer, PropertyHolder propertyHolder) {
-		return isSet(dataContainer, propertyHolder.getId());
+		return isSet(dataContainer, getNodeId(propertyHolder));
 	}
 	
 	public boolean isSet(DataContainer dataContainer, String nodeId) {
@@ -96,7 +124,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public String getStringValue(DataContainer dataContainer, PropertyHolder holder) {
-		return getStringValue(dataContainer, holder.getId(), null);
+		return getStringValue(dataContainer, getNodeId(holder), null);
 	}
 	
 	public String getStringValue(DataContainer dataContainer, String nodeId) {
@@ -104,7 +132,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public String getStringValue(DataContainer dataContainer, PropertyHolder holder, String defaultValue) {
-		return getStringValue(dataContainer, holder.getId(), defaultValue);
+		return getStringValue(dataContainer, getNodeId(holder), defaultValue);
 	}
 	
 	public String getStringValue(DataContainer dataContainer, String nodeId, String defaultValue) {
@@ -124,23 +152,19 @@ public abstract class GenericProperty<T> implements Property<T> {
     }
 	
 	public void setValue(DataContainer dataContainer, PropertyHolder holder, T value) {
-		setValue(dataContainer, holder.getId(), value);
+		setValue(dataContainer, getNodeId(holder), value);
 	}
 	
 	public void setValue(DataContainer dataContainer, String nodeId, T value) {
 		if (value != null) {
-			if (value instanceof java.util.Date) {
-				setStringValue(dataContainer, nodeId, dateFormat.format(value));
-			} else {
-				setStringValue(dataContainer, nodeId, value.toString());
-			}
+			setStringValue(dataContainer, nodeId, toStringValue(value));
 		} else {
 			setStringValue(dataContainer, nodeId, (String) null);
 		}
 	}
 	
 	public void setStringValue(DataContainer dataContainer, PropertyHolder holder, String value) {
-		setStringValue(dataContainer, holder.getId(), value);
+		setStringValue(dataContainer, getNodeId(holder), value);
 	}
 	
 	public void setStringValue(DataContainer dataContainer, String nodeId, String value) {
@@ -154,7 +178,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public void clearValue(DataContainer dataContainer, PropertyHolder holder) {
-		clearValue(dataContainer, holder.getId());
+		clearValue(dataContainer, getNodeId(holder));
 	}
 	
 	public void clearValue(DataContainer dataContainer, String nodeId) {
@@ -165,7 +189,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 
 	/** Default implementation throws an Exception. */
 	public T getValue(DataContainer dataContainer, PropertyHolder holder) {
-		return getValue(dataContainer, holder.getId(), null);
+		return getValue(dataContainer, getNodeId(holder), null);
 	}
 	
 	/** Default implementation throws an Exception. */
@@ -174,21 +198,45 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public T getValue(DataContainer dataContainer, PropertyHolder holder, T defaultValue) {
-		return getValue(dataContainer, holder.getId(), defaultValue);
+		return getValue(dataContainer, getNodeId(holder), defaultValue);
 	}
 	
-	@SuppressWarnings("unchecked")
 	public T getValue(DataContainer dataContainer, String nodeId, T defaultValue) {
 		// check whether we have a converter
-		if (! StringConverter.containsConverter(propertyType)) {
+		Converter<T> converter = getConverter();
+		if (converter == null && binaryCodec == null) {
 			throw new UnsupportedOperationException("No converter for class " + propertyType.getName() + " available.");
 		}
 		String value = getStringValue(dataContainer, nodeId);
-		if (value != null) {
-			return (T) StringConverter.convert(value, propertyType);
-		} else {
+		if (value == null) {
 			return defaultValue;
+		} else if (binaryCodec != null) {
+			return binaryCodec.decode(DataUtils.decodeBase64(value));
+		} else {
+			return converter.convert(value);
+		}
+	}
+	
+	/** Converts a value into the String stored in a DataContainer. */
+	@SuppressWarnings("unchecked")
+	protected String toStringValue(T value) {
+		if (binaryCodec != null) {
+			return DataUtils.encodeBase64(binaryCodec.encode(value));
+		}
+		Converter<T> converter = getConverter();
+		if (converter instanceof Codec) {
+			return ((Codec<T>) converter).toString(value);
+		}
+		// the value might be of a subclass with its own codec
+		return StringConverter.toString(value);
+	}
+	
+	/** Get the converter, looking it up again in case it has been registered after this property was created. */
+	private Converter<T> getConverter() {
+		if (converter == null) {
+			converter = StringConverter.getConverter(propertyType);
 		}
+		return converter;
 	}
 	
 	public void restoreValue(DataContainer dataContainer, PropertyHolder holder) {
@@ -204,7 +252,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 
 	/** Ensure a value, using whatever default should be used for this property. */
 	public T ensureValue(DataContainer dataContainer, PropertyHolder holder) {
-		return ensureValue(dataContainer, holder.getId());
+		return ensureValue(dataContainer, getNodeId(holder));
 	}
 	/** Ensures a value, using the default value defined by this property.
 	 * Note: by default this method throws an UnsupportedOperationException
@@ -215,7 +263,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	}
 	
 	public T ensureValue(DataContainer dataContainer, PropertyHolder holder, T defaultValue) {
-		return ensureValue(dataContainer, holder.getId(), defaultValue);
+		return ensureValue(dataContainer, getNodeId(holder), defaultValue);
 	}
 	
 	/** Ensure a value is set. Sets the default value if not already available.
@@ -237,7 +285,7 @@ public abstract class GenericProperty<T> implements Property<T> {
 	 *                     will be copied. 
 	 */
 	public boolean copyValue(DataContainer dataContainer, Node fromNode, Node toNode, T defaultValue) {
-		return copyValue(dataContainer, fromNode.getId(), toNode.getId(), defaultValue);
+		return copyValue(dataContainer, getNodeId(fromNode), getNodeId(toNode), defaultValue);
 	}
 	
 	public boolean copyValue(DataContainer dataContainer, String fromId, String toId, T defaultValue) {
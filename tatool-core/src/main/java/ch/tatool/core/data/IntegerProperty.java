@@ -19,6 +19,7 @@
 package ch.tatool.core.data;
 
 import ch.tatool.data.DataContainer;
+import ch.tatool.data.PropertyHolder;
 import ch.tatool.element.Node;
 
 /**
@@ -54,4 +55,55 @@ public class IntegerProperty extends GenericProperty<Integer> {
 	public Integer getValueOrDefault(Node node) {
 		return getValue(node, defaultValue);
 	}
+	
+	// primitive access
+	
+	public int getValue(DataContainer dataContainer, PropertyHolder holder, int defaultValue) {
+		return getValue(dataContainer, getNodeId(holder), defaultValue);
+	}
+	
+	/** Get the value as primitive int, without creating a String if the container supports typed values. */
+	public int getValue(DataContainer dataContainer, String nodeId, int defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			return ((TypedDataContainer) dataContainer).getIntValue(nodeId, getPropertyName(), defaultValue);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		// Intentionally don't catch NumberFormatException
+		return (value != null) ? Integer.parseInt(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, PropertyHolder holder, int value) {
+		setValue(dataContainer, getNodeId(holder), value);
+	}
+	
+	/** Set the value as primitive int, without formatting a String if the container supports typed values. */
+	public void setValue(DataContainer dataContainer, String nodeId, int value) {
+		if (dataContainer instanceof TypedDataContainer) {
+			((TypedDataContainer) dataContainer).putIntValue(nodeId, getPropertyName(), value);
+		} else {
+			setStringValue(dataContainer, nodeId, Integer.toString(value));
+		}
+	}
+	
+	// boxed access, routed through the primitive methods
+	
+	public Integer getValue(DataContainer dataContainer, String nodeId, Integer defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			TypedDataContainer typed = (TypedDataContainer) dataContainer;
+			if (! typed.containsValue(nodeId, getPropertyName())) {
+				return defaultValue;
+			}
+			return typed.getIntValue(nodeId, getPropertyName(), 0);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		return (value != null) ? Integer.valueOf(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, String nodeId, Integer value) {
+		if (value != null) {
+			setValue(dataContainer, nodeId, value.intValue());
+		} else {
+			clearValue(dataContainer, nodeId);
+		}
+	}
 }
@@ -18,6 +18,9 @@
  ******************************************************************************/
 package ch.tatool.core.data;
 
+import ch.tatool.data.DataContainer;
+import ch.tatool.data.PropertyHolder;
+
 /**
  * Long value property object
  * 
@@ -29,4 +32,54 @@ public class LongProperty extends GenericProperty<Long> {
 		super(propertyName, Long.class);
 	}
 
+	// primitive access
+	
+	public long getValue(DataContainer dataContainer, PropertyHolder holder, long defaultValue) {
+		return getValue(dataContainer, getNodeId(holder), defaultValue);
+	}
+	
+	/** Get the value as primitive long, without creating a String if the container supports typed values. */
+	public long getValue(DataContainer dataContainer, String nodeId, long defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			return ((TypedDataContainer) dataContainer).getLongValue(nodeId, getPropertyName(), defaultValue);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		// Intentionally don't catch NumberFormatException
+		return (value != null) ? Long.parseLong(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, PropertyHolder holder, long value) {
+		setValue(dataContainer, getNodeId(holder), value);
+	}
+	
+	/** Set the value as primitive long, without formatting a String if the container supports typed values. */
+	public void setValue(DataContainer dataContainer, String nodeId, long value) {
+		if (dataContainer instanceof TypedDataContainer) {
+			((TypedDataContainer) dataContainer).putLongValue(nodeId, getPropertyName(), value);
+		} else {
+			setStringValue(dataContainer, nodeId, Long.toString(value));
+		}
+	}
+	
+	// boxed access, routed through the primitive methods
+	
+	public Long getValue(DataContainer dataContainer, String nodeId, Long defaultValue) {
+		if (dataContainer instanceof TypedDataContainer) {
+			TypedDataContainer typed = (TypedDataContainer) dataContainer;
+			if (! typed.containsValue(nodeId, getPropertyName())) {
+				return defaultValue;
+			}
+			return typed.getLongValue(nodeId, getPropertyName(), 0L);
+		}
+		String value = getStringValue(dataContainer, nodeId);
+		return (value != null) ? Long.valueOf(value) : defaultValue;
+	}
+	
+	public void setValue(DataContainer dataContainer, String nodeId, Long value) {
+		if (value != null) {
+			setValue(dataContainer, nodeId, value.longValue());
+		} else {
+			clearValue(dataContainer, nodeId);
+		}
+	}
 }
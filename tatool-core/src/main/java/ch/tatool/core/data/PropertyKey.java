@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+/**
+ * Immutable (nodeId, propertyName) pair used to address a property value in a DataContainer.
+ * 
+ * Keys are handed out by KeyedPropertyHolder implementations, which build them from their
+ * cached id. Properties therefore don't have to rebuild the node id for every access.
+ */
+public final class PropertyKey {
+
+	private final String nodeId;
+	private final String propertyName;
+	private final int hash;
+	
+	public PropertyKey(String nodeId, String propertyName) {
+		this.nodeId = nodeId;
+		this.propertyName = propertyName;
+		this.hash = 31 * nodeId.hashCode() + propertyName.hashCode();
+	}
+	
+	public String getNodeId() {
+		return nodeId;
+	}
+	
+	public String getPropertyName() {
+		return propertyName;
+	}
+	
+	public int hashCode() {
+		return hash;
+	}
+	
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (! (o instanceof PropertyKey)) {
+			return false;
+		}
+		PropertyKey other = (PropertyKey) o;
+		return hash == other.hash && nodeId.equals(other.nodeId) && propertyName.equals(other.propertyName);
+	}
+	
+	public String toString() {
+		return nodeId + ":" + propertyName;
+	}
+}
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import java.awt.MediaTracker;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+import javax.swing.ImageIcon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of stimulus resources (stimuli files, images, html pages).
+ *
+ * Entries are keyed by the resolved resource URL, the locale and the kind of value (e.g. bytes,
+ * text in a given encoding or image), and weighed by their (approximate) size in bytes. Once the total weight exceeds the maximum size, the least recently used
+ * entries are evicted. Resources that are not found or could not be decoded are not cached.
+ *
+ * Cached values are shared between all users of the cache and must not be modified.
+ * The cache is thread-safe, resources are loaded outside of the lock, which means that
+ * concurrent requests for the same uncached resource may load it twice.
+ */
+public class StimulusCache {
+
+	Logger logger = LoggerFactory.getLogger(StimulusCache.class);
+
+	/** Default maximum size of the cache, in bytes. */
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+	private static final StimulusCache defaultCache = new StimulusCache(DEFAULT_MAX_BYTES);
+
+	/** Loads a resource and determines its weight. */
+	public interface Loader<T> {
+
+		/** Load the resource, returns null if the resource does not exist. */
+		public T load(URL url) throws IOException;
+
+		/**
+		 * Returns the approximate size of the value in bytes, or a negative number if the
+		 * value is to be returned without caching it (e.g. a broken image).
+		 */
+		public long weigh(T value);
+	}
+
+	private long maxBytes;
+	private long totalBytes;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+
+	/** Entries in access order, the eldest entry is the least recently used one. */
+	private LinkedHashMap<Key, Entry> entries;
+
+	public StimulusCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+		this.entries = new LinkedHashMap<Key, Entry>(64, 0.75f, true);
+	}
+
+	/** Get the cache shared by all executables. */
+	public static StimulusCache getDefault() {
+		return defaultCache;
+	}
+
+	/**
+	 * Get a resource from the cache, loading it if necessary.
+	 *
+	 * Values are cached per loader class, so all loaders of a class have to produce the same
+	 * value for a resource.
+	 *
+	 * @param resourceClass the class used to load the resource
+	 * @param path the resource path
+	 * @param locale the locale the resource is specific to, or null
+	 * @param loader the loader used in case the resource is not cached
+	 * @return the resource or null if it could not be found or loaded
+	 */
+	public <T> T get(Class<?> resourceClass, String path, Locale locale, Loader<T> loader) {
+		return get(resourceClass, path, locale, loader.getClass().getName(), loader);
+	}
+
+	/**
+	 * Get a resource from the cache, loading it if necessary.
+	 *
+	 * @param kind identifies the kind of value the loader produces
+	 */
+	private <T> T get(Class<?> resourceClass, String path, Locale locale, String kind, Loader<T> loader) {
+		// the same path can resolve to different resources depending on the class
+		URL url = resourceClass.getResource(path);
+		if (url == null) {
+			logger.warn("Resource file not found: " + path);
+			return null;
+		}
+		Key key = new Key(url.toExternalForm(), locale, kind);
+		synchronized (this) {
+			Entry entry = entries.get(key);
+			if (entry != null) {
+				hitCount++;
+				@SuppressWarnings("unchecked")
+				T value = (T) entry.value;
+				return value;
+			}
+			missCount++;
+		}
+
+		T value;
+		try {
+			value = loader.load(url);
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			return null;
+		}
+		if (value != null) {
+			long weight = loader.weigh(value);
+			if (weight >= 0) {
+				put(key, value, weight);
+			}
+		}
+		return value;
+	}
+
+	/** Get the raw bytes of a resource. */
+	public byte[] getBytes(Class<?> resourceClass, String path, Locale locale) {
+		return get(resourceClass, path, locale, "bytes", BYTES_LOADER);
+	}
+
+	/**
+	 * Get a text resource, line breaks are normalized to \n.
+	 *
+	 * @param charsetName the encoding of the resource, or null for the platform default
+	 */
+	public String getText(Class<?> resourceClass, String path, Locale locale, final String charsetName) {
+		return get(resourceClass, path, locale, "text:" + charsetName, new Loader<String>() {
+			public String load(URL url) throws IOException {
+				InputStream in = url.openStream();
+				BufferedReader reader = new BufferedReader(charsetName != null
+						? new InputStreamReader(in, charsetName) : new InputStreamReader(in));
+				try {
+					StringBuilder builder = new StringBuilder();
+					String line;
+					while ((line = reader.readLine()) != null) {
+						builder.append(line).append('\n');
+					}
+					return builder.toString();
+				} finally {
+					reader.close();
+				}
+			}
+			public long weigh(String value) {
+				return 2L * value.length();
+			}
+		});
+	}
+
+	/** Get a decoded image. */
+	public ImageIcon getImage(Class<?> resourceClass, String path) {
+		return get(resourceClass, path, null, "image", IMAGE_LOADER);
+	}
+
+	private synchronized void put(Key key, Object value, long weight) {
+		if (weight > maxBytes) {
+			// never cache values that would evict everything else
+			return;
+		}
+		Entry previous = entries.put(key, new Entry(value, weight));
+		if (previous != null) {
+			totalBytes -= previous.weight;
+		}
+		totalBytes += weight;
+		evict();
+	}
+
+	private void evict() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (totalBytes > maxBytes && it.hasNext()) {
+			Entry eldest = it.next();
+			it.remove();
+			totalBytes -= eldest.weight;
+			evictionCount++;
+		}
+	}
+
+	/** Removes all entries, the counters are not reset. */
+	public synchronized void clear() {
+		entries.clear();
+		totalBytes = 0;
+	}
+
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/** Set the maximum size of the cache, evicting entries if necessary. */
+	public synchronized void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	/** Returns the total weight of all cached entries. */
+	public synchronized long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "StimulusCache[size=" + entries.size() + ", bytes=" + totalBytes + "/" + maxBytes
+				+ ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+	}
+
+	private static final Loader<byte[]> BYTES_LOADER = new Loader<byte[]>() {
+		public byte[] load(URL url) throws IOException {
+			InputStream in = url.openStream();
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				byte[] buffer = new byte[8192];
+				int n;
+				while ((n = in.read(buffer)) >= 0) {
+					out.write(buffer, 0, n);
+				}
+				return out.toByteArray();
+			} finally {
+				in.close();
+			}
+		}
+		public long weigh(byte[] value) {
+			return value.length;
+		}
+	};
+
+	private static final Loader<ImageIcon> IMAGE_LOADER = new Loader<ImageIcon>() {
+		public ImageIcon load(URL url) {
+			// ImageIcon blocks until the image has been decoded
+			return new ImageIcon(url);
+		}
+		public long weigh(ImageIcon value) {
+			// don't keep images that failed to load, they might be readable later on
+			if (value.getImageLoadStatus() != MediaTracker.COMPLETE || value.getIconWidth() < 0) {
+				return -1;
+			}
+			// decoded ARGB pixels
+			return Math.max(1L, 4L * value.getIconWidth() * value.getIconHeight());
+		}
+	};
+
+	private static final class Key {
+		/** External form of the resource URL. */
+		private final String path;
+		private final Locale locale;
+		/** Kind of the cached value. */
+		private final String kind;
+		private final int hash;
+
+		private Key(String path, Locale locale, String kind) {
+			this.path = path;
+			this.locale = locale;
+			this.kind = kind;
+			this.hash = 31 * (31 * path.hashCode() + (locale != null ? locale.hashCode() : 0)) + kind.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return hash == other.hash && path.equals(other.path) && kind.equals(other.kind)
+					&& (locale == null ? other.locale == null : locale.equals(other.locale));
+		}
+	}
+
+	private static final class Entry {
+		private final Object value;
+		private final long weight;
+
+		private Entry(Object value, long weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+}
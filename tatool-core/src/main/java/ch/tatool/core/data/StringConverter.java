@@ -18,20 +18,34 @@
  ******************************************************************************/
 package ch.tatool.core.data;
 
-import java.util.HashMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Contains handler methods that convert a String into other object types
  * 
+ * Converters are registered per class. Converters implementing Codec also define the
+ * String representation of a value, otherwise toString() is used. Enum types don't need
+ * to be registered, a converter is created for them on first use.
+ * 
+ * Additionally BinaryCodecs can be registered, which encode values into a compact binary form. 
+ * 
  * @author Michael Ruflin
  */
 public class StringConverter {
 
 	private static Map<Class<?>, Converter<?>> converters;
 	
+	private static Map<Class<?>, BinaryCodec<?>> binaryCodecs;
+	
 	static {
-		converters = new HashMap<Class<?>, Converter<?>>();
+		converters = new ConcurrentHashMap<Class<?>, Converter<?>>();
 		
 		// initialize default implementations
 		converters.put(String.class, new IdentityConverter());
@@ -39,6 +53,16 @@ public class StringConverter {
 		converters.put(Long.class, new LongConverter());
 		converters.put(Float.class, new FloatConverter());
 		converters.put(Double.class, new DoubleConverter());
+		converters.put(Boolean.class, new BooleanConverter());
+		converters.put(Date.class, new DateCodec());
+		converters.put(int[].class, new IntArrayCodec());
+		converters.put(long[].class, new LongArrayCodec());
+		converters.put(double[].class, new DoubleArrayCodec());
+		
+		binaryCodecs = new ConcurrentHashMap<Class<?>, BinaryCodec<?>>();
+		binaryCodecs.put(int[].class, new IntArrayCodec());
+		binaryCodecs.put(long[].class, new LongArrayCodec());
+		binaryCodecs.put(double[].class, new DoubleArrayCodec());
 	}
 	
 	private StringConverter() {
@@ -49,7 +73,22 @@ public class StringConverter {
 	}
 	
 	public static boolean containsConverter(Class<?> type) {
-		return converters.containsKey(type);
+		return getConverter(type) != null;
+	}
+	
+	/**
+	 * Get the converter for a type.
+	 * 
+	 * @return the converter or null if none is available
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <T> Converter<T> getConverter(Class<T> type) {
+		Converter<?> converter = converters.get(type);
+		if (converter == null && type.isEnum()) {
+			converter = new EnumConverter(type);
+			converters.put(type, converter);
+		}
+		return (Converter<T>) converter;
 	}
 	
 	/** Converts a String into another object type.
@@ -58,13 +97,41 @@ public class StringConverter {
 	 * @throws RuntimeException if conversion is not possible.
 	 */
 	public static Object convert(String s, Class<?> type) {
-		Converter<?> converter = converters.get(type);
+		Converter<?> converter = getConverter(type);
 		if (converter == null) {
 			throw new RuntimeException("No matching converter available");
 		}
 		return converter.convert(s);
 	}
 	
+	/**
+	 * Converts an object into its String representation.
+	 * 
+	 * Uses the Codec registered for the object class if available, toString() otherwise.
+	 */
+	@SuppressWarnings("unchecked")
+	public static String toString(Object value) {
+		Converter<?> converter = getConverter(value.getClass());
+		if (converter instanceof Codec) {
+			return ((Codec<Object>) converter).toString(value);
+		}
+		return value.toString();
+	}
+	
+	public static void registerBinaryCodec(Class<?> c, BinaryCodec<?> codec) {
+		binaryCodecs.put(c, codec);
+	}
+	
+	/**
+	 * Get the binary codec for a type.
+	 * 
+	 * @return the codec or null if none is available
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> BinaryCodec<T> getBinaryCodec(Class<T> type) {
+		return (BinaryCodec<T>) binaryCodecs.get(type);
+	}
+	
 	public interface Converter<T> {
 		/**
 		 * Convert the passed in String to an object of type T.
@@ -76,6 +143,33 @@ public class StringConverter {
 		public T convert(String s);
 	}
 	
+	/** Converter that also defines the String representation of the values. */
+	public interface Codec<T> extends Converter<T> {
+		/**
+		 * Convert the passed in value into a String that can be read by convert.
+		 * 
+		 * @param value the value to convert, guaranteed to be non-null
+		 */
+		public String toString(T value);
+	}
+	
+	/** Encodes values into a compact binary representation. */
+	public interface BinaryCodec<T> {
+		/**
+		 * Encode the passed in value.
+		 * 
+		 * @param value the value to encode, guaranteed to be non-null
+		 */
+		public byte[] encode(T value);
+		
+		/**
+		 * Decode a value encoded by encode.
+		 * 
+		 * @throws RuntimeException if the data is not valid
+		 */
+		public T decode(byte[] bytes);
+	}
+	
 	static class IdentityConverter implements Converter<String> {
 		public String convert(String s) {
 			return s;
@@ -109,4 +203,193 @@ public class StringConverter {
 			return Float.parseFloat(s);
 		}
 	}
+	
+	static class BooleanConverter implements Converter<Boolean> {
+		public Boolean convert(String s) {
+			return Boolean.valueOf(s);
+		}
+	}
+	
+	static class DateCodec implements Codec<Date> {
+		public Date convert(String s) {
+			return DataUtils.parseDate(s);
+		}
+		
+		public String toString(Date value) {
+			return DataUtils.formatDate(value);
+		}
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static class EnumConverter implements Converter<Enum> {
+		private Class<? extends Enum> type;
+		
+		EnumConverter(Class<?> type) {
+			this.type = (Class<? extends Enum>) type;
+		}
+		
+		public Enum convert(String s) {
+			// Intentionally don't catch IllegalArgumentException
+			return Enum.valueOf(type, s);
+		}
+	}
+	
+	/** Arrays are stored as comma separated list of values. */
+	static class IntArrayCodec implements Codec<int[]>, BinaryCodec<int[]> {
+		public int[] convert(String s) {
+			String[] parts = split(s);
+			int[] values = new int[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				values[i] = Integer.parseInt(parts[i]);
+			}
+			return values;
+		}
+		
+		public String toString(int[] value) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < value.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(value[i]);
+			}
+			return builder.toString();
+		}
+		
+		public byte[] encode(int[] value) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + value.length * 4);
+				DataOutputStream out = new DataOutputStream(bytes);
+				out.writeInt(value.length);
+				for (int v : value) {
+					out.writeInt(v);
+				}
+				out.flush();
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		
+		public int[] decode(byte[] bytes) {
+			try {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+				int[] values = new int[in.readInt()];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = in.readInt();
+				}
+				return values;
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	static class LongArrayCodec implements Codec<long[]>, BinaryCodec<long[]> {
+		public long[] convert(String s) {
+			String[] parts = split(s);
+			long[] values = new long[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				values[i] = Long.parseLong(parts[i]);
+			}
+			return values;
+		}
+		
+		public String toString(long[] value) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < value.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(value[i]);
+			}
+			return builder.toString();
+		}
+		
+		public byte[] encode(long[] value) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + value.length * 8);
+				DataOutputStream out = new DataOutputStream(bytes);
+				out.writeInt(value.length);
+				for (long v : value) {
+					out.writeLong(v);
+				}
+				out.flush();
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		
+		public long[] decode(byte[] bytes) {
+			try {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+				long[] values = new long[in.readInt()];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = in.readLong();
+				}
+				return values;
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	static class DoubleArrayCodec implements Codec<double[]>, BinaryCodec<double[]> {
+		public double[] convert(String s) {
+			String[] parts = split(s);
+			double[] values = new double[parts.length];
+			for (int i = 0; i < parts.length; i++) {
+				values[i] = Double.parseDouble(parts[i]);
+			}
+			return values;
+		}
+		
+		public String toString(double[] value) {
+			StringBuilder builder = new StringBuilder();
+			for (int i = 0; i < value.length; i++) {
+				if (i > 0) {
+					builder.append(',');
+				}
+				builder.append(value[i]);
+			}
+			return builder.toString();
+		}
+		
+		public byte[] encode(double[] value) {
+			try {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + value.length * 8);
+				DataOutputStream out = new DataOutputStream(bytes);
+				out.writeInt(value.length);
+				for (double v : value) {
+					out.writeDouble(v);
+				}
+				out.flush();
+				return bytes.toByteArray();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		
+		public double[] decode(byte[] bytes) {
+			try {
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+				double[] values = new double[in.readInt()];
+				for (int i = 0; i < values.length; i++) {
+					values[i] = in.readDouble();
+				}
+				return values;
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+	
+	/** Splits a comma separated list, returns an empty array for an empty String. */
+	private static String[] split(String s) {
+		if (s.length() == 0) {
+			return new String[0];
+		}
+		return s.split(",");
+	}
 }
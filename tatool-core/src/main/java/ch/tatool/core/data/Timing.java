@@ -29,10 +29,16 @@ public class Timing {
     public static final String PROPERTY_TIMING_START = "startTime";
     public static final String PROPERTY_TIMING_END = "endTime";
     public static final String PROPERTY_TIMING_DURATION = "durationTime";
+    public static final String PROPERTY_TIMING_ONSET_NANOS = "onsetNanos";
+    public static final String PROPERTY_TIMING_RESPONSE_NANOS = "responseNanos";
+    public static final String PROPERTY_TIMING_REACTION_TIME_NANOS = "reactionTimeNanos";
 	
 	private static DateProperty startTimeProperty = new DateProperty(PROPERTY_TIMING_START);
 	private static DateProperty endTimeProperty = new DateProperty(PROPERTY_TIMING_END);
 	private static LongProperty durationTimeProperty = new LongProperty(PROPERTY_TIMING_DURATION);
+	private static LongProperty onsetNanosProperty = new LongProperty(PROPERTY_TIMING_ONSET_NANOS);
+	private static LongProperty responseNanosProperty = new LongProperty(PROPERTY_TIMING_RESPONSE_NANOS);
+	private static LongProperty reactionTimeNanosProperty = new LongProperty(PROPERTY_TIMING_REACTION_TIME_NANOS);
 
 	public static LongProperty getDurationTimeProperty() {
 		return durationTimeProperty;
@@ -58,4 +64,41 @@ public class Timing {
 		Timing.startTimeProperty = startTimeProperty;
 	}
 	
+	/** Monotonic stimulus onset timestamp in nanoseconds (see TimingService). */
+	public static LongProperty getOnsetNanosProperty() {
+		return onsetNanosProperty;
+	}
+
+	public static void setOnsetNanosProperty(LongProperty onsetNanosProperty) {
+		Timing.onsetNanosProperty = onsetNanosProperty;
+	}
+
+	/** Monotonic response timestamp in nanoseconds (see TimingService). */
+	public static LongProperty getResponseNanosProperty() {
+		return responseNanosProperty;
+	}
+
+	public static void setResponseNanosProperty(LongProperty responseNanosProperty) {
+		Timing.responseNanosProperty = responseNanosProperty;
+	}
+
+	/** Reaction time in nanoseconds, -1 if no response has been given. */
+	public static LongProperty getReactionTimeNanosProperty() {
+		return reactionTimeNanosProperty;
+	}
+
+	public static void setReactionTimeNanosProperty(LongProperty reactionTimeNanosProperty) {
+		Timing.reactionTimeNanosProperty = reactionTimeNanosProperty;
+	}
+	
+	/**
+	 * Store start and end times as epoch milliseconds instead of formatted date Strings.
+	 * This avoids formatting dates whenever a trial is stored. Precise timestamps are
+	 * available through the onset and response nanos properties.
+	 */
+	public static void setStoreEpochMillis(boolean storeEpochMillis) {
+		startTimeProperty.setStoreEpochMillis(storeEpochMillis);
+		endTimeProperty.setStoreEpochMillis(storeEpochMillis);
+	}
+	
 }
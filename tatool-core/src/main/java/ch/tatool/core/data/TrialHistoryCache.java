@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.tatool.data.DataService;
+import ch.tatool.data.Module;
+import ch.tatool.data.ModuleSession;
+import ch.tatool.data.Trial;
+import ch.tatool.element.Node;
+import ch.tatool.exec.ExecutionContext;
+import ch.tatool.exec.ExecutionPhase;
+import ch.tatool.exec.ExecutionPhaseListener;
+import ch.tatool.exec.Executor;
+
+/**
+ * Session scoped cache of trial history queries.
+ *
+ * Elements that need the last trials of a node or the number of sessions of the module
+ * while a session runs can use the static getTrials and getSessionCount methods instead
+ * of going to the DataService. The first query for a node loads the trials from the
+ * DataService, afterwards the trials created during the session are appended at the
+ * end of each element execution, so later queries are answered from memory. If no cache
+ * has been registered with the executor, the static methods query the DataService directly.
+ *
+ * The cache is reset at the beginning of each session.
+ */
+public class TrialHistoryCache implements ExecutionPhaseListener {
+
+	Logger logger = LoggerFactory.getLogger(TrialHistoryCache.class);
+
+	/** Name of the execution context property holding the cache. */
+	public static final String PROPERTY_TRIAL_HISTORY_CACHE = "trialHistoryCache";
+
+	/** Registered cache per executor. Guarded by itself. */
+	private static final Map<Executor, TrialHistoryCache> caches = new WeakHashMap<Executor, TrialHistoryCache>();
+
+	/** Session the cached data belongs to. */
+	private ModuleSession session;
+
+	/** Trials per node id, oldest first. */
+	private Map<String, History> histories = new HashMap<String, History>();
+
+	/** Cached session counts, index 0 without and 1 including unfinished sessions. */
+	private long[] sessionCounts = new long[] { -1, -1 };
+
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * Registers a cache with the executor, or returns the cache already registered with it.
+	 */
+	public static TrialHistoryCache register(Executor executor) {
+		synchronized (caches) {
+			TrialHistoryCache cache = caches.get(executor);
+			if (cache == null) {
+				cache = new TrialHistoryCache();
+				executor.getPhaseListenerManager().addExecutionPhaseListener(cache, ExecutionPhase.SESSION_START);
+				executor.getPhaseListenerManager().addExecutionPhaseListener(cache, ExecutionPhase.POST_PROCESS);
+				executor.getPhaseListenerManager().addExecutionPhaseListener(cache, ExecutionPhase.SESSION_FINISH);
+				caches.put(executor, cache);
+			}
+			return cache;
+		}
+	}
+
+	/** Get the cache of the current execution, or null if none is registered. */
+	public static TrialHistoryCache getCache(ExecutionContext context) {
+		return (TrialHistoryCache) context.getProperty(PROPERTY_TRIAL_HISTORY_CACHE);
+	}
+
+	/**
+	 * Get the last trials of a node, oldest first.
+	 *
+	 * @param maxResults the maximum number of trials to return, 0 or less for all trials (never cached)
+	 */
+	public static List<Trial> getTrials(ExecutionContext context, Node node, int maxResults) {
+		TrialHistoryCache cache = getCache(context);
+		if (cache == null || maxResults <= 0) {
+			return context.getDataService().getTrials(context.getExecutionData().getModule(), null, node, maxResults);
+		}
+		return cache.getCachedTrials(context, node, maxResults);
+	}
+
+	/** Get the number of sessions of the module. */
+	public static long getSessionCount(ExecutionContext context, boolean includeUnfinished) {
+		TrialHistoryCache cache = getCache(context);
+		if (cache == null) {
+			return context.getDataService().getSessionCount(context.getExecutionData().getModule(), includeUnfinished);
+		}
+		return cache.getCachedSessionCount(context, includeUnfinished);
+	}
+
+	public void processExecutionPhase(ExecutionContext context) {
+		switch (context.getPhase()) {
+		case SESSION_START:
+			context.setProperty(PROPERTY_TRIAL_HISTORY_CACHE, this);
+			checkSession(context);
+			break;
+		case POST_PROCESS:
+			appendTrials(context);
+			break;
+		case SESSION_FINISH:
+			if (logger.isDebugEnabled()) {
+				logger.debug(toString());
+			}
+			reset(null);
+			break;
+		default:
+			// do nothing
+		}
+	}
+
+	private synchronized List<Trial> getCachedTrials(ExecutionContext context, Node node, int maxResults) {
+		checkSession(context);
+		String nodeId = node.getId();
+		History history = histories.get(nodeId);
+		if (history != null && history.limit >= maxResults) {
+			hitCount++;
+			return history.getLast(maxResults);
+		}
+
+		// load the trials, keeping at most maxResults of them
+		missCount++;
+		DataService dataService = context.getDataService();
+		Module module = context.getExecutionData().getModule();
+		history = new History(maxResults);
+		for (Trial trial : dataService.getTrials(module, null, node, maxResults)) {
+			history.add(trial);
+		}
+		histories.put(nodeId, history);
+		return history.getLast(maxResults);
+	}
+
+	private synchronized long getCachedSessionCount(ExecutionContext context, boolean includeUnfinished) {
+		checkSession(context);
+		int index = includeUnfinished ? 1 : 0;
+		if (sessionCounts[index] >= 0) {
+			hitCount++;
+		} else {
+			missCount++;
+			sessionCounts[index] = context.getDataService().getSessionCount(
+					context.getExecutionData().getModule(), includeUnfinished);
+		}
+		return sessionCounts[index];
+	}
+
+	/** Appends the trials of the finished element to the loaded histories. */
+	private synchronized void appendTrials(ExecutionContext context) {
+		if (histories.isEmpty()) {
+			return;
+		}
+		List<Trial> trials = context.getExecutionData().getTrials();
+		if (trials == null) {
+			return;
+		}
+		for (Trial trial : trials) {
+			History history = histories.get(trial.getParentId());
+			if (history != null) {
+				history.add(trial);
+			}
+		}
+	}
+
+	/** Drops all data if the session changed. */
+	private void checkSession(ExecutionContext context) {
+		ModuleSession current = context.getExecutionData().getModuleSession();
+		if (current != session) {
+			reset(current);
+		}
+	}
+
+	private synchronized void reset(ModuleSession newSession) {
+		session = newSession;
+		histories.clear();
+		sessionCounts[0] = -1;
+		sessionCounts[1] = -1;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/** Returns the proportion of queries answered from memory. */
+	public synchronized double getHitRate() {
+		long total = hitCount + missCount;
+		return total > 0 ? (double) hitCount / total : 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TrialHistoryCache[nodes=" + histories.size() + ", hits=" + hitCount + ", misses=" + missCount + ", hitRate=" + getHitRate() + "]";
+	}
+
+	/**
+	 * Most recent trials of a node, oldest first.
+	 *
+	 * A trial appended at the end of an element execution might already have been loaded from
+	 * the data service, as a different instance. Stored trials are therefore compared by id,
+	 * trials that have not been stored yet by identity.
+	 */
+	private static class History {
+		/** Number of trials kept, queries for up to limit trials can be answered. */
+		private final int limit;
+		private final LinkedList<Trial> trials = new LinkedList<Trial>();
+		/** Ids of the stored trials in the history. */
+		private final Set<Long> ids = new HashSet<Long>();
+
+		private History(int limit) {
+			this.limit = limit;
+		}
+
+		private void add(Trial trial) {
+			Long id = trial.getId();
+			if (id != null ? !ids.add(id) : trials.contains(trial)) {
+				return;
+			}
+			trials.addLast(trial);
+			if (trials.size() > limit) {
+				Long removed = trials.removeFirst().getId();
+				if (removed != null) {
+					ids.remove(removed);
+				}
+			}
+		}
+
+		private List<Trial> getLast(int maxResults) {
+			int from = Math.max(0, trials.size() - maxResults);
+			return new ArrayList<Trial>(trials.subList(from, trials.size()));
+		}
+	}
+}
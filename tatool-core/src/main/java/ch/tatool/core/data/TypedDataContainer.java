@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import ch.tatool.data.DataContainer;
+
+/**
+ * DataContainer extension that is able to store numeric values without going through
+ * a String representation.
+ *
+ * The numeric properties (IntegerProperty, LongProperty and DoubleProperty) use these
+ * methods whenever the container passed to them implements this interface, and fall back
+ * to the String based getValue/putValue methods otherwise. Implementations have to make
+ * sure that values put through either channel are visible through both, that is
+ * getValue(nodeId, propertyName) has to return the String representation of a value
+ * stored with one of the typed put methods.
+ */
+public interface TypedDataContainer extends DataContainer {
+
+	/** Returns whether a value is stored for the given node and property name. */
+	public boolean containsValue(String nodeId, String propertyName);
+
+	/**
+	 * Get an int value.
+	 *
+	 * @param defaultValue the value to return if no value is stored
+	 * @throws NumberFormatException if the stored value is not an int
+	 */
+	public int getIntValue(String nodeId, String propertyName, int defaultValue);
+
+	/** Put an int value. */
+	public void putIntValue(String nodeId, String propertyName, int value);
+
+	/**
+	 * Get a long value.
+	 *
+	 * @param defaultValue the value to return if no value is stored
+	 * @throws NumberFormatException if the stored value is not a long
+	 */
+	public long getLongValue(String nodeId, String propertyName, long defaultValue);
+
+	/** Put a long value. */
+	public void putLongValue(String nodeId, String propertyName, long value);
+
+	/**
+	 * Get a double value.
+	 *
+	 * @param defaultValue the value to return if no value is stored
+	 * @throws NumberFormatException if the stored value is not a double
+	 */
+	public double getDoubleValue(String nodeId, String propertyName, double defaultValue);
+
+	/** Put a double value. */
+	public void putDoubleValue(String nodeId, String propertyName, double value);
+}
@@ -42,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import ch.tatool.core.element.ElementUtils;
 import ch.tatool.core.element.handler.KeyEventHandler;
+import ch.tatool.core.element.handler.ResponseKeyEventHandler;
 import ch.tatool.exec.ExecutionContext;
 import ch.tatool.exec.ExecutionPhase;
 import ch.tatool.exec.ExecutionPhaseListener;
@@ -202,6 +203,7 @@ public class SwingExecutionFrame extends javax.swing.JFrame implements
 	/** Display a previously added card. */
 	public void showCard(String cardId) {
 		cardLayout.show(rootPanel, cardId);
+		TimingService.displayUpdated();
 	}
 
 	/** Removes a card from the display. */
@@ -276,7 +278,9 @@ public class SwingExecutionFrame extends javax.swing.JFrame implements
 	}
 
 	/**
-	 * Initialise key bindings for available KeyEventHandlers
+	 * Initialise key bindings for available KeyEventHandlers.
+	 * 
+	 * Only the keys of ResponseKeyEventHandlers that opt in are recorded as responses.
 	 */
 	public void setupKeyEvents() {
 		List<Object> keyEventHandlers = (List<Object>) ElementUtils.findHandlersInStackByType(executor.getExecutionContext(), KeyEventHandler.class);
@@ -288,6 +292,10 @@ public class SwingExecutionFrame extends javax.swing.JFrame implements
 				private static final long serialVersionUID = 1L;
 
 				public void actionPerformed(ActionEvent e) {
+					if (keyHandler instanceof ResponseKeyEventHandler
+							&& ((ResponseKeyEventHandler) keyHandler).isResponseKey()) {
+						TimingService.recordResponse(TimingService.nanoTime());
+					}
 					if (executor != null) {
 						logger.info("Key event triggered with code: " + KeyEvent.getKeyText(keyHandler.getKeyEvent()));
 						keyHandler.triggerKeyEvent(keyHandler.getKeyEvent(), executor.getExecutionContext());
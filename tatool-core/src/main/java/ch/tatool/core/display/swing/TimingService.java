@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.display.swing;
+
+import java.awt.Toolkit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+import ch.tatool.core.data.Timing;
+import ch.tatool.data.DataContainer;
+import ch.tatool.data.PropertyHolder;
+
+/**
+ * Monotonic, nanosecond resolution timestamps for stimulus onset and response.
+ *
+ * The onset of a stimulus is armed by calling requestOnset before the stimulus is
+ * displayed (BlockingAWTExecutable does this for each execution). The display notifies
+ * the service whenever it has been updated, and the onset is taken once the pending
+ * repaints have been processed and flushed to the screen. Responses are taken at the
+ * time the input event is received, only the first response after the onset of each
+ * stimulus counts. Responses given before the onset (e.g. keys still pressed from the
+ * previous stimulus) are ignored.
+ *
+ * Requesting an onset starts a new stimulus, the timestamps of the previous one are
+ * dropped at once, so that values of two stimuli are never mixed.
+ *
+ * All timestamps are System.nanoTime values and are only meaningful relative to each other.
+ */
+public class TimingService {
+
+	/** Value of timestamps that have not been taken. */
+	public static final long NO_TIMESTAMP = -1;
+
+	/** Timestamps of the current stimulus. */
+	private static volatile Stimulus current = new Stimulus(false);
+
+	/** Whether taking the onset has been scheduled already. Only accessed on the EDT. */
+	private static boolean onsetScheduled = false;
+
+	private static final Runnable takeOnset = new Runnable() {
+		public void run() {
+			onsetScheduled = false;
+			Stimulus stimulus = current;
+			if (stimulus.onsetPending) {
+				// make sure the painted frame has actually been sent to the screen
+				Toolkit.getDefaultToolkit().sync();
+				stimulus.onsetNanos = nanoTime();
+				stimulus.onsetPending = false;
+			}
+		}
+	};
+
+	private TimingService() {
+	}
+
+	/** Returns the current value of the monotonic clock, in nanoseconds. */
+	public static long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Starts a new stimulus and arms its onset timestamp, the next displayed frame will be
+	 * taken as stimulus onset.
+	 */
+	public static void requestOnset() {
+		current = new Stimulus(true);
+	}
+
+	/** Returns whether an onset has been requested but not yet taken. */
+	public static boolean isOnsetPending() {
+		return current.onsetPending;
+	}
+
+	/**
+	 * Notifies the service that the display has been updated or painted.
+	 *
+	 * Has to be called on the EDT. If an onset is pending, the onset is taken after the events
+	 * currently in the queue, which includes the repaints caused by the update.
+	 */
+	public static void displayUpdated() {
+		if (current.onsetPending && !onsetScheduled) {
+			onsetScheduled = true;
+			SwingUtilities.invokeLater(takeOnset);
+		}
+	}
+
+	/**
+	 * Records a response. Responses received before the onset of the current stimulus
+	 * are ignored.
+	 *
+	 * @param nanos the time the response was received, as returned by nanoTime
+	 */
+	public static void recordResponse(long nanos) {
+		Stimulus stimulus = current;
+		long onset = stimulus.onsetNanos;
+		if (onset == NO_TIMESTAMP || nanos < onset) {
+			return;
+		}
+		stimulus.responseNanos.compareAndSet(NO_TIMESTAMP, nanos);
+	}
+
+	/** Returns the onset of the current stimulus, or NO_TIMESTAMP. */
+	public static long getOnsetNanos() {
+		return current.onsetNanos;
+	}
+
+	/** Returns the time of the first response to the current stimulus, or NO_TIMESTAMP. */
+	public static long getResponseNanos() {
+		return current.responseNanos.get();
+	}
+
+	/** Returns the reaction time in nanoseconds, or NO_TIMESTAMP if either timestamp is missing. */
+	public static long getReactionTimeNanos() {
+		return current.getReactionTimeNanos();
+	}
+
+	/** Stores onset, response and reaction time as raw long values. */
+	public static void storeTimestamps(DataContainer container, PropertyHolder holder) {
+		// read all values from the same stimulus
+		Stimulus stimulus = current;
+		Timing.getOnsetNanosProperty().setValue(container, holder, stimulus.onsetNanos);
+		Timing.getResponseNanosProperty().setValue(container, holder, stimulus.responseNanos.get());
+		Timing.getReactionTimeNanosProperty().setValue(container, holder, stimulus.getReactionTimeNanos());
+	}
+
+	/** Timestamps of one stimulus. */
+	private static final class Stimulus {
+		private volatile boolean onsetPending;
+		private volatile long onsetNanos = NO_TIMESTAMP;
+		private final AtomicLong responseNanos = new AtomicLong(NO_TIMESTAMP);
+
+		private Stimulus(boolean onsetPending) {
+			this.onsetPending = onsetPending;
+		}
+
+		private long getReactionTimeNanos() {
+			long onset = onsetNanos;
+			long response = responseNanos.get();
+			if (onset == NO_TIMESTAMP || response == NO_TIMESTAMP) {
+				return NO_TIMESTAMP;
+			}
+			return response - onset;
+		}
+	}
+}
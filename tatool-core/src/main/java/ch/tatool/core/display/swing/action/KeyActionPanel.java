@@ -29,6 +29,8 @@ import javax.swing.ImageIcon;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 
+import ch.tatool.core.display.swing.TimingService;
+
 /**
  * The KeyActionPanel allows to define the actions that get triggered when keys are pressed.
  *
@@ -208,8 +210,11 @@ public class KeyActionPanel extends AbstractActionPanel {
         /** Called when a key has been typed. */
         public boolean dispatchKeyEvent(KeyEvent e) {
             if (e.getID() == KeyEvent.KEY_PRESSED) {
+                // take the timestamp first thing, KeyEvent.getWhen only has millisecond resolution
+                long receivedNanos = TimingService.nanoTime();
                 for (int i = 0; i < actionKeys.size(); i++) {
                     if (e.getKeyCode() == actionKeys.get(i).key) {
+                        TimingService.recordResponse(receivedNanos);
                         fireActionTriggered(actionKeys.get(i).actionValue);
                         break;
                     }
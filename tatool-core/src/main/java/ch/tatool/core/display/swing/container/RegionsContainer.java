@@ -14,6 +14,7 @@ package ch.tatool.core.display.swing.container;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +22,8 @@ import java.util.Map;
 
 import javax.swing.JPanel;
 
+import ch.tatool.core.display.swing.TimingService;
+
 /**
  * A container that splits the overall screen into regions (see java.awt.BorderLayout)
  * where components can be added.
@@ -50,6 +53,13 @@ public class RegionsContainer extends javax.swing.JPanel {
     	repaint();
     }
     
+    /** Paints the container and notifies the TimingService about the new frame. */
+    @Override
+    public void paint(Graphics g) {
+    	super.paint(g);
+    	TimingService.displayUpdated();
+    }
+    
     /** Sets the content displayed in a region. */
     public void setRegionContent(Region region, Component component, boolean visible) {
     	component.setVisible(visible);
@@ -21,12 +21,20 @@ package ch.tatool.core.display.swing.matrix;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import ch.tatool.core.data.StringConverter;
+
 /**
  * Encapsulates a value and the associated location in the matrix.
  * 
  * @author Michael Ruflin
  */
 public class MatrixValue {
+	
+	static {
+		// make matrix values storable as properties
+		StringConverter.registerConverter(MatrixValue.class, new MatrixValueCodec());
+	}
+	
 	public int row, column;
 	public Object value;
 	public int action; // add or remove
@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.display.swing.matrix;
+
+import ch.tatool.core.data.StringConverter;
+
+/**
+ * Stores matrix values as "row,column:value" Strings.
+ * 
+ * Registered with the StringConverter when the MatrixValue class is initialized. Values are
+ * read back with a String value.
+ */
+public class MatrixValueCodec implements StringConverter.Codec<MatrixValue> {
+
+	public MatrixValue convert(String s) {
+		MatrixValue value = MatrixValue.fromString(s);
+		if (value == null) {
+			throw new IllegalArgumentException("Invalid matrix value: " + s);
+		}
+		return value;
+	}
+
+	public String toString(MatrixValue value) {
+		return value.toString();
+	}
+}
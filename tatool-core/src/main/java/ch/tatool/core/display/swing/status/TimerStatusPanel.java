@@ -47,6 +47,9 @@ public class TimerStatusPanel extends TextStatusPanel implements StatusPanel {
 	private int maxValue = 100;
 	private int currentValue;
 	
+	/** Index of the displayed image, -1 if no image is displayed. */
+	private int imageIndex = -1;
+	
 	/** Creates new form TextStatusPanel */
     public TimerStatusPanel() {
     	super();
@@ -60,6 +63,7 @@ public class TimerStatusPanel extends TextStatusPanel implements StatusPanel {
     	super.setEnabled(enabled);
     	if (! enabled) {
     		getValueLabel().setIcon(null);
+    		imageIndex = -1;
     	}
     }
     
@@ -111,20 +115,31 @@ public class TimerStatusPanel extends TextStatusPanel implements StatusPanel {
 	}
 	
 	private void updateValueLabel() {
-		// find out where on the scale from minValue to maxValue the currentValue is.
-		// this implementation only shows minValue if currentValue = minValue
-		int range = maxValue - minValue;
+		int newImageIndex = getImageIndex(currentValue, minValue, maxValue);
+		// only touch the label if the displayed image actually changes
+		if (newImageIndex != imageIndex) {
+			imageIndex = newImageIndex;
+			getValueLabel().setIcon(imageMap.get(imageIndex));
+		}
+	}
+	
+	/**
+	 * Get the index of the image displayed for a value.
+	 * 
+	 * Callers updating the panel in regular intervals can use this method to skip updates
+	 * that would not change the displayed image.
+	 */
+	public static int getImageIndex(long value, long minValue, long maxValue) {
+		// find out where on the scale from minValue to maxValue the value is.
+		// this implementation only shows minValue if value = minValue
+		long range = maxValue - minValue;
 		int discreteValuesCount = IMAGE_COUNT - 1;
-		// find the index to display
-		int imageIndex = 0;
 		for (int x=0; x <= discreteValuesCount; x++) {
-			if (currentValue <= (minValue + (range * x / discreteValuesCount))) {
-				imageIndex = x;
-				break;
+			if (value <= (minValue + (range * x / discreteValuesCount))) {
+				return x;
 			}
 		}
-		
-		getValueLabel().setIcon(imageMap.get(imageIndex));
+		return 0;
 	}
 	
 	/** Reset the panel to its default state. */
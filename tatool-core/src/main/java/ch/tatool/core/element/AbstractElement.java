@@ -20,6 +20,7 @@ package ch.tatool.core.element;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import ch.tatool.element.Element;
 
@@ -30,7 +31,13 @@ import ch.tatool.element.Element;
  */
 public abstract class AbstractElement extends NodeImpl implements Element {
 
+	/** Number of handler modifications of all elements. */
+	private static final AtomicInteger allHandlerModCount = new AtomicInteger();
+
 	private List<Object> handlers;
+
+	/** Number of handler modifications of this element. */
+	private volatile int handlerModCount;
 	
 	public AbstractElement() {
 		this.handlers = new ArrayList<Object>();
@@ -48,15 +55,37 @@ public abstract class AbstractElement extends NodeImpl implements Element {
 	public void setHandlers(List<Object> handlers) {
 		this.handlers = handlers;
 		assignParent(this, handlers);
+		handlersModified();
 	}
 	
 	public void addHandler(Object handler) {
 		handlers.add(handler);
 		assignParent(this, handler);
+		handlersModified();
 	}
 	
 	public void removeHandler(Object handler) {
 		handlers.remove(handler);
 		assignParent(null, handler);
+		handlersModified();
+	}
+
+	private void handlersModified() {
+		handlerModCount++;
+		allHandlerModCount.incrementAndGet();
+	}
+
+	/** Returns the number of handler changes made through this class, used to detect changes. */
+	int getHandlerModCount() {
+		return handlerModCount;
+	}
+
+	/** Returns the number of handler changes of all elements. */
+	static int getAllHandlerModCount() {
+		return allHandlerModCount.get();
+	}
+	
+	protected void invalidateChildIds() {
+		invalidateIds(handlers);
 	}
 }
@@ -18,22 +18,48 @@
  ******************************************************************************/
 package ch.tatool.core.element;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 import ch.tatool.data.PropertyHolder;
 
 /**
  * Default implementation of a property holder.
+ * 
+ * The properties are kept in a PropertyStore, by default a MapPropertyStore. Whoever
+ * creates the holder can replace the store using setPropertyStore, e.g. the module
+ * initializer for all beans of a module (see PropertyStoragePostProcessor).
  */
 public abstract class AbstractPropertyHolder implements PropertyHolder {
 
     /** Properties. */
-    private Map<String, Object> properties;
+    private PropertyStore properties;
 	
     public AbstractPropertyHolder() {
-    	properties = new HashMap<String, Object>();
+    	properties = new MapPropertyStore();
+    }
+    
+    public PropertyStore getPropertyStore() {
+    	return properties;
+    }
+    
+    /**
+     * Set the store used for the properties of this holder.
+     * Properties already set are copied into the new store.
+     */
+    public void setPropertyStore(PropertyStore propertyStore) {
+    	for (String name : properties.keySet()) {
+    		propertyStore.put(name, properties.get(name));
+    	}
+    	properties = propertyStore;
+    }
+    
+    /**
+     * Makes the given holder use the same kind of property store as this holder.
+     * 
+     * Used for holders created during the execution, e.g. temporary elements.
+     */
+    protected void sharePropertyStorage(AbstractPropertyHolder holder) {
+    	holder.setPropertyStore(properties.newStore());
     }
     
     public Object getProperty(String name) {
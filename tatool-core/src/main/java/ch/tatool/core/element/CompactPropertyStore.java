@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import ch.tatool.core.data.Level;
+import ch.tatool.core.data.Misc;
+import ch.tatool.core.data.Points;
+import ch.tatool.element.Element;
+
+/**
+ * Memory efficient property store.
+ * 
+ * The values of the properties set on almost every element (executed flag, level, points
+ * and outcome) are kept in dedicated fields, with the executed flag and the numbers stored
+ * as primitives. All other properties are stored in two small parallel arrays which are
+ * searched linearly, which is faster than hashing for the handful of properties an element
+ * usually holds.
+ * 
+ * Clearing the store resets the fields and the array size without reallocating anything.
+ * 
+ * As with the MapPropertyStore, a property set to null is kept (and listed by keySet)
+ * until it is removed.
+ */
+public class CompactPropertyStore implements PropertyStore {
+
+	private static final int INITIAL_CAPACITY = 4;
+	
+	private static final byte UNSET = 0;
+	private static final byte TRUE = 1;
+	private static final byte FALSE = 2;
+	
+	// well-known properties
+	private byte executed = UNSET;
+	private boolean levelSet;
+	private int level;
+	private boolean pointsSet;
+	private int points;
+	private String outcome;
+	
+	// all other properties
+	private String[] keys;
+	private Object[] values;
+	private int size;
+	
+	public CompactPropertyStore() {
+		keys = new String[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		size = 0;
+	}
+	
+	public Object get(String name) {
+		if (Element.EXECUTED.equals(name) && executed != UNSET) {
+			return executed == TRUE ? Boolean.TRUE : Boolean.FALSE;
+		} else if (Level.PROPERTY_LEVEL.equals(name) && levelSet) {
+			return level;
+		} else if (Points.PROPERTY_POINTS.equals(name) && pointsSet) {
+			return points;
+		} else if (Misc.PROPERTY_OUTCOME.equals(name) && outcome != null) {
+			return outcome;
+		}
+		int index = indexOf(name);
+		return index < 0 ? null : values[index];
+	}
+
+	public void put(String name, Object value) {
+		// store well-known values in their fields if they have the expected type
+		if (Element.EXECUTED.equals(name) && value instanceof Boolean) {
+			executed = ((Boolean) value).booleanValue() ? TRUE : FALSE;
+			removeEntry(name);
+		} else if (Level.PROPERTY_LEVEL.equals(name) && value instanceof Integer) {
+			level = ((Integer) value).intValue();
+			levelSet = true;
+			removeEntry(name);
+		} else if (Points.PROPERTY_POINTS.equals(name) && value instanceof Integer) {
+			points = ((Integer) value).intValue();
+			pointsSet = true;
+			removeEntry(name);
+		} else if (Misc.PROPERTY_OUTCOME.equals(name) && value instanceof String) {
+			outcome = (String) value;
+			removeEntry(name);
+		} else {
+			// other types and null values are kept as regular entries
+			removeField(name);
+			putEntry(name, value);
+		}
+	}
+
+	public void remove(String name) {
+		removeField(name);
+		removeEntry(name);
+	}
+
+	/** Returns a snapshot of the property names. */
+	public Set<String> keySet() {
+		Set<String> keySet = new HashSet<String>();
+		if (executed != UNSET) {
+			keySet.add(Element.EXECUTED);
+		}
+		if (levelSet) {
+			keySet.add(Level.PROPERTY_LEVEL);
+		}
+		if (pointsSet) {
+			keySet.add(Points.PROPERTY_POINTS);
+		}
+		if (outcome != null) {
+			keySet.add(Misc.PROPERTY_OUTCOME);
+		}
+		for (int i = 0; i < size; i++) {
+			keySet.add(keys[i]);
+		}
+		return keySet;
+	}
+
+	public void clear() {
+		executed = UNSET;
+		levelSet = false;
+		pointsSet = false;
+		outcome = null;
+		
+		// release the references but keep the arrays
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+
+	public PropertyStore newStore() {
+		return new CompactPropertyStore();
+	}
+	
+	private int indexOf(String name) {
+		// property names are usually constants, so try identity first
+		for (int i = 0; i < size; i++) {
+			if (keys[i] == name) {
+				return i;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			if (keys[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private void putEntry(String name, Object value) {
+		int index = indexOf(name);
+		if (index >= 0) {
+			values[index] = value;
+			return;
+		}
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			values = Arrays.copyOf(values, size * 2);
+		}
+		keys[size] = name;
+		values[size] = value;
+		size++;
+	}
+	
+	private void removeEntry(String name) {
+		int index = indexOf(name);
+		if (index < 0) {
+			return;
+		}
+		// move the last entry into the free spot
+		size--;
+		keys[index] = keys[size];
+		values[index] = values[size];
+		keys[size] = null;
+		values[size] = null;
+	}
+	
+	private void removeField(String name) {
+		if (Element.EXECUTED.equals(name)) {
+			executed = UNSET;
+		} else if (Level.PROPERTY_LEVEL.equals(name)) {
+			levelSet = false;
+		} else if (Points.PROPERTY_POINTS.equals(name)) {
+			pointsSet = false;
+		} else if (Misc.PROPERTY_OUTCOME.equals(name)) {
+			outcome = null;
+		}
+	}
+}
@@ -66,6 +66,11 @@ public class CompoundElement extends AbstractElement {
 		return children;
 	}
 	
+	protected void invalidateChildIds() {
+		super.invalidateChildIds();
+		invalidateIds(children);
+	}
+	
 	/** Updates the children object. */
 	private void updateChildren() {
 		children.clear();
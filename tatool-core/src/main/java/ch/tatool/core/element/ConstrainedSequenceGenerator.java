@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.Random;
+
+/**
+ * Generates counterbalanced trial orders for elements grouped into conditions.
+ *
+ * Each element is assigned a condition. The generator first distributes the trials evenly
+ * over the elements, then orders the resulting condition occurrences and finally assigns
+ * the elements of each condition in random order to the occurrences of their condition.
+ *
+ * Supported constraints on the condition order:
+ * - maxConsecutive: a condition occurs at most this many times in a row (0 for no limit).
+ *   A condition is only drawn if the remaining occurrences can still be arranged, so the
+ *   generation never needs to backtrack.
+ * - balancedTransitions: the next condition is drawn among the ones the previous condition
+ *   has been followed by least often (relative to their number of occurrences), which evens
+ *   out the transition frequencies. Only used for up to MAX_TRANSITION_CONDITIONS conditions.
+ *
+ * generateBlocked instead presents the conditions in blocks, in an order given by a row of
+ * a balanced Latin square (see getLatinSquareRow).
+ *
+ * Conditions are drawn through a segment tree over the remaining occurrence counts, so a
+ * sequence of n trials over m conditions is generated in O(n log m), with balanced
+ * transitions in O(n m).
+ */
+public class ConstrainedSequenceGenerator {
+
+	/** Maximum number of conditions for which transitions are balanced. */
+	public static final int MAX_TRANSITION_CONDITIONS = 64;
+
+	/** Maximum number of times a condition may occur in a row, 0 for no limit. */
+	private int maxConsecutive = 0;
+
+	/** Whether to balance the transition frequencies between conditions. */
+	private boolean balancedTransitions = true;
+
+	public ConstrainedSequenceGenerator() {
+	}
+
+	public ConstrainedSequenceGenerator(int maxConsecutive, boolean balancedTransitions) {
+		this.maxConsecutive = maxConsecutive;
+		this.balancedTransitions = balancedTransitions;
+	}
+
+	/**
+	 * Generates a randomised sequence.
+	 *
+	 * @param conditions the condition of each element, any non-negative values
+	 * @param length the length of the sequence
+	 * @param random the source of randomness
+	 * @return the element indexes
+	 * @throws IllegalArgumentException if the constraints cannot be satisfied
+	 */
+	public int[] generate(int[] conditions, int length, Random random) {
+		if (length <= 0) {
+			return new int[0];
+		}
+		ElementPool pool = new ElementPool(conditions, length, random);
+		int[] conditionSequence = generateConditionSequence(pool.conditionCounts, length, random);
+		return pool.assign(conditionSequence, random);
+	}
+
+	/**
+	 * Generates a sequence in which the conditions are presented in blocks.
+	 *
+	 * @param conditions the condition of each element, any non-negative values
+	 * @param length the length of the sequence
+	 * @param blockOrder the order of the blocks as indexes into the sorted distinct condition
+	 *        values, e.g. a row returned by getLatinSquareRow
+	 * @param random the source of randomness
+	 * @return the element indexes
+	 */
+	public int[] generateBlocked(int[] conditions, int length, int[] blockOrder, Random random) {
+		if (length <= 0) {
+			return new int[0];
+		}
+		ElementPool pool = new ElementPool(conditions, length, random);
+		if (blockOrder.length != pool.conditionCounts.length) {
+			throw new IllegalArgumentException("Block order has " + blockOrder.length + " entries for " + pool.conditionCounts.length + " conditions");
+		}
+		int[] conditionSequence = new int[length];
+		int position = 0;
+		for (int condition : blockOrder) {
+			for (int i = 0; i < pool.conditionCounts[condition]; i++) {
+				conditionSequence[position++] = condition;
+			}
+		}
+		return pool.assign(conditionSequence, random);
+	}
+
+	/** Returns the number of rows of the balanced Latin square for n conditions. */
+	public static int getLatinSquareRowCount(int n) {
+		return (n % 2 == 0) ? n : 2 * n;
+	}
+
+	/**
+	 * Returns a row of a balanced Latin square (Williams design) for n conditions.
+	 *
+	 * Over all rows each condition occurs equally often at each position and directly follows
+	 * each other condition equally often. For an odd n this takes 2n rows, the second half
+	 * being the first half reversed. Rows beyond the row count wrap around, so participant
+	 * numbers can be passed directly.
+	 */
+	public static int[] getLatinSquareRow(int n, int row) {
+		int rowCount = getLatinSquareRowCount(n);
+		row = ((row % rowCount) + rowCount) % rowCount;
+		boolean reversed = row >= n;
+		int shift = row % n;
+
+		// first row: 0, 1, n-1, 2, n-2, ...
+		int[] result = new int[n];
+		int low = 1;
+		int high = n - 1;
+		for (int i = 1; i < n; i++) {
+			result[i] = (i % 2 == 1) ? low++ : high--;
+		}
+		for (int i = 0; i < n; i++) {
+			result[i] = (result[i] + shift) % n;
+		}
+		if (reversed) {
+			for (int i = 0, j = n - 1; i < j; i++, j--) {
+				int tmp = result[i];
+				result[i] = result[j];
+				result[j] = tmp;
+			}
+		}
+		return result;
+	}
+
+	/** Orders the condition occurrences. */
+	private int[] generateConditionSequence(int[] counts, int length, Random random) {
+		int k = maxConsecutive;
+		if (k > 0) {
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] > (long) k * (length - counts[i] + 1)) {
+					throw new IllegalArgumentException("Cannot arrange " + counts[i] + " of " + length + " trials of one condition with at most " + k + " in a row");
+				}
+			}
+		}
+		boolean useTransitions = balancedTransitions && counts.length > 1 && counts.length <= MAX_TRANSITION_CONDITIONS;
+		int[][] transitions = useTransitions ? new int[counts.length][counts.length] : null;
+		int[] initialCounts = counts.clone();
+		CountTree tree = new CountTree(counts);
+
+		int[] sequence = new int[length];
+		int last = -1;
+		int run = 0;
+		for (int position = 0; position < length; position++) {
+			int remaining = length - position;
+			int condition = -1;
+			boolean excludeLast = false;
+			if (k > 0) {
+				// a condition holding more than k/(k+1) of the remaining trials has to be drawn now
+				int max = tree.getMaxIndex();
+				if (tree.getCount(max) > (long) k * (remaining - tree.getCount(max))) {
+					condition = max;
+				} else {
+					excludeLast = (run >= k);
+				}
+			}
+			if (condition < 0) {
+				if (useTransitions && last >= 0) {
+					condition = drawTransition(tree, transitions[last], initialCounts, excludeLast ? last : -1, random);
+				} else {
+					condition = tree.draw(excludeLast ? last : -1, random);
+				}
+			}
+			if (transitions != null && last >= 0) {
+				transitions[last][condition]++;
+			}
+			tree.decrement(condition);
+			run = (condition == last) ? run + 1 : 1;
+			last = condition;
+			sequence[position] = condition;
+		}
+		return sequence;
+	}
+
+	/** Draws among the conditions that followed the last condition least often, weighted by their remaining count. */
+	private int drawTransition(CountTree tree, int[] fromLast, int[] initialCounts, int excluded, Random random) {
+		// find the lowest ratio of transitions to occurrences
+		int best = -1;
+		for (int i = 0; i < fromLast.length; i++) {
+			if (tree.getCount(i) > 0 && i != excluded
+					&& (best < 0 || compareRatio(fromLast, initialCounts, i, best) < 0)) {
+				best = i;
+			}
+		}
+		// draw among all conditions with that ratio
+		int total = 0;
+		for (int i = 0; i < fromLast.length; i++) {
+			if (tree.getCount(i) > 0 && i != excluded && compareRatio(fromLast, initialCounts, i, best) == 0) {
+				total += tree.getCount(i);
+			}
+		}
+		int value = random.nextInt(total);
+		for (int i = 0; i < fromLast.length; i++) {
+			if (tree.getCount(i) > 0 && i != excluded && compareRatio(fromLast, initialCounts, i, best) == 0) {
+				value -= tree.getCount(i);
+				if (value < 0) {
+					return i;
+				}
+			}
+		}
+		return best;
+	}
+
+	/** Compares fromLast[a] / initialCounts[a] with fromLast[b] / initialCounts[b]. */
+	private int compareRatio(int[] fromLast, int[] initialCounts, int a, int b) {
+		long diff = (long) fromLast[a] * initialCounts[b] - (long) fromLast[b] * initialCounts[a];
+		return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+	}
+
+	/** Elements grouped by condition, with the number of times each element is used. */
+	private static class ElementPool {
+		/** Number of occurrences per (dense) condition. */
+		private final int[] conditionCounts;
+		/** Element index per occurrence, grouped by condition. */
+		private final int[] elements;
+		/** Start of each condition in elements. */
+		private final int[] offsets;
+
+		private ElementPool(int[] conditions, int length, Random random) {
+			if (conditions.length == 0) {
+				throw new IllegalArgumentException("Cannot generate a sequence without elements");
+			}
+			// map the condition values to 0..m-1, in ascending order
+			int maxCondition = 0;
+			for (int condition : conditions) {
+				if (condition < 0) {
+					throw new IllegalArgumentException("Negative condition " + condition);
+				}
+				maxCondition = Math.max(maxCondition, condition);
+			}
+			int[] dense = new int[maxCondition + 1];
+			for (int condition : conditions) {
+				dense[condition] = 1;
+			}
+			int conditionCount = 0;
+			for (int i = 0; i < dense.length; i++) {
+				dense[i] = (dense[i] == 1) ? conditionCount++ : -1;
+			}
+
+			// distribute the trials evenly over the elements
+			int[] elementCounts = TrialSequenceGenerator.getBalancedCounts(conditions.length, length, random);
+			conditionCounts = new int[conditionCount];
+			for (int i = 0; i < conditions.length; i++) {
+				conditionCounts[dense[conditions[i]]] += elementCounts[i];
+			}
+			offsets = new int[conditionCount + 1];
+			for (int i = 0; i < conditionCount; i++) {
+				offsets[i + 1] = offsets[i] + conditionCounts[i];
+			}
+			elements = new int[length];
+			int[] fill = offsets.clone();
+			for (int i = 0; i < conditions.length; i++) {
+				int condition = dense[conditions[i]];
+				for (int j = 0; j < elementCounts[i]; j++) {
+					elements[fill[condition]++] = i;
+				}
+			}
+		}
+
+		/** Replaces each condition with one of its elements, in random order per condition. */
+		private int[] assign(int[] conditionSequence, Random random) {
+			// shuffle the elements of each condition (Fisher-Yates)
+			for (int condition = 0; condition < conditionCounts.length; condition++) {
+				int start = offsets[condition];
+				for (int i = offsets[condition + 1] - 1; i > start; i--) {
+					int j = start + random.nextInt(i - start + 1);
+					int tmp = elements[i];
+					elements[i] = elements[j];
+					elements[j] = tmp;
+				}
+			}
+			int[] next = offsets.clone();
+			int[] result = new int[conditionSequence.length];
+			for (int i = 0; i < conditionSequence.length; i++) {
+				result[i] = elements[next[conditionSequence[i]]++];
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Segment tree over the remaining counts per condition, supports drawing a condition
+	 * weighted by its count and finding the condition with the highest count in O(log m).
+	 */
+	private static class CountTree {
+		private final int size;
+		private final int[] sums;
+		private final int[] maxIndexes;
+
+		private CountTree(int[] counts) {
+			int s = 1;
+			while (s < counts.length) {
+				s *= 2;
+			}
+			size = s;
+			sums = new int[2 * size];
+			maxIndexes = new int[2 * size];
+			for (int i = 0; i < size; i++) {
+				sums[size + i] = i < counts.length ? counts[i] : 0;
+				maxIndexes[size + i] = i;
+			}
+			for (int node = size - 1; node > 0; node--) {
+				update(node);
+			}
+		}
+
+		private void update(int node) {
+			int left = 2 * node;
+			int right = left + 1;
+			sums[node] = sums[left] + sums[right];
+			int leftMax = maxIndexes[left];
+			int rightMax = maxIndexes[right];
+			maxIndexes[node] = sums[size + rightMax] > sums[size + leftMax] ? rightMax : leftMax;
+		}
+
+		private int getCount(int index) {
+			return sums[size + index];
+		}
+
+		private int getMaxIndex() {
+			return maxIndexes[1];
+		}
+
+		private void decrement(int index) {
+			int node = size + index;
+			sums[node]--;
+			for (node /= 2; node > 0; node /= 2) {
+				update(node);
+			}
+		}
+
+		/** Draws an index weighted by its count, never returning excluded (-1 for none). */
+		private int draw(int excluded, Random random) {
+			int total = sums[1] - (excluded >= 0 ? getCount(excluded) : 0);
+			int value = random.nextInt(total);
+			if (excluded >= 0 && value >= getPrefixSum(excluded)) {
+				// skip the weight of the excluded index
+				value += getCount(excluded);
+			}
+			int node = 1;
+			while (node < size) {
+				int left = 2 * node;
+				if (value < sums[left]) {
+					node = left;
+				} else {
+					value -= sums[left];
+					node = left + 1;
+				}
+			}
+			return node - size;
+		}
+
+		/** Returns the sum of the counts of all indexes below index. */
+		private int getPrefixSum(int index) {
+			int sum = 0;
+			int node = size + index;
+			while (node > 1) {
+				if (node % 2 == 1) {
+					sum += sums[node - 1];
+				}
+				node /= 2;
+			}
+			return sum;
+		}
+	}
+
+	public int getMaxConsecutive() {
+		return maxConsecutive;
+	}
+
+	/** Set the maximum number of times a condition may occur in a row, 0 for no limit. */
+	public void setMaxConsecutive(int maxConsecutive) {
+		this.maxConsecutive = maxConsecutive;
+	}
+
+	public boolean isBalancedTransitions() {
+		return balancedTransitions;
+	}
+
+	public void setBalancedTransitions(boolean balancedTransitions) {
+		this.balancedTransitions = balancedTransitions;
+	}
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Serves the elements of the group in a pre-generated, counterbalanced order.
+ *
+ * Each child element belongs to a condition, given by the conditions list (one value per
+ * child, in child order). Without such a list each child forms its own condition.
+ * The sequence is generated by a ConstrainedSequenceGenerator:
+ * - maxRepeats limits the number of consecutive trials of the same condition
+ * - balancedTransitions evens out how often each condition follows each other condition
+ * - latinSquare presents the conditions in blocks, ordered by the row of a balanced Latin
+ *   square given by the participant number, which counterbalances the block order across
+ *   participants
+ *
+ * The participant number is taken from the participantNumber property or, if not set, from
+ * the module property PROPERTY_PARTICIPANT_NUMBER.
+ *
+ * Generation, storage and seeding of the sequence work as for the SequenceListSelector,
+ * the trials are always distributed evenly over the child elements, so balanced cannot be
+ * turned off. latinSquare cannot be combined with maxRepeats, as each block repeats its
+ * condition.
+ */
+public class CounterbalancedListSelector extends SequenceListSelector {
+
+	private Logger logger = LoggerFactory.getLogger(CounterbalancedListSelector.class);
+
+	/** Module property holding the number of the participant, used for the Latin square. */
+	public static final String PROPERTY_PARTICIPANT_NUMBER = "participantNumber";
+
+	/** Condition of each child element, null if each child is a condition of its own. */
+	private List<Integer> conditions;
+
+	/** Whether to present the conditions in blocks ordered by a Latin square. */
+	private boolean latinSquare = false;
+
+	/** Number of the participant, null to read it from the module. */
+	private Integer participantNumber;
+
+	private ConstrainedSequenceGenerator generator = new ConstrainedSequenceGenerator();
+
+	public CounterbalancedListSelector() {
+	}
+
+	public CounterbalancedListSelector(int numIterations) {
+		super(numIterations);
+	}
+
+	@Override
+	protected int[] createSequence(ExecutionContext context, int elementCount, int length, Random random) {
+		int[] elementConditions = getElementConditions(elementCount);
+		generator.setMaxConsecutive(getMaxRepeats());
+		if (!latinSquare) {
+			return generator.generate(elementConditions, length, random);
+		}
+
+		if (getMaxRepeats() > 0) {
+			throw new IllegalArgumentException("maxRepeats cannot be combined with latinSquare, the conditions are presented in blocks");
+		}
+		int conditionCount = countConditions(elementConditions);
+		int row = getLatinSquareRow(context, conditionCount, random);
+		int[] blockOrder = ConstrainedSequenceGenerator.getLatinSquareRow(conditionCount, row);
+		return generator.generateBlocked(elementConditions, length, blockOrder, random);
+	}
+
+	/** Returns the condition of each child element. */
+	protected int[] getElementConditions(int elementCount) {
+		int[] result = new int[elementCount];
+		if (conditions == null) {
+			for (int i = 0; i < elementCount; i++) {
+				result[i] = i;
+			}
+			return result;
+		}
+		if (conditions.size() != elementCount) {
+			throw new IllegalArgumentException("Got " + conditions.size() + " conditions for " + elementCount + " elements");
+		}
+		for (int i = 0; i < elementCount; i++) {
+			result[i] = conditions.get(i);
+		}
+		return result;
+	}
+
+	private int countConditions(int[] elementConditions) {
+		Set<Integer> distinct = new HashSet<Integer>();
+		for (int condition : elementConditions) {
+			distinct.add(condition);
+		}
+		return distinct.size();
+	}
+
+	/** Returns the Latin square row of the participant. */
+	private int getLatinSquareRow(ExecutionContext context, int conditionCount, Random random) {
+		if (participantNumber != null) {
+			return participantNumber;
+		}
+		String value = context.getExecutionData().getModule().getModuleProperties().get(PROPERTY_PARTICIPANT_NUMBER);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value.trim());
+			} catch (NumberFormatException e) {
+				logger.warn("Invalid participant number: {}", value);
+			}
+		}
+		// the block order is not counterbalanced across participants in this case
+		logger.warn("No participant number available, using a random Latin square row");
+		return random.nextInt(ConstrainedSequenceGenerator.getLatinSquareRowCount(conditionCount));
+	}
+
+	public List<Integer> getConditions() {
+		return conditions;
+	}
+
+	/** Set the condition of each child element, in child order. */
+	public void setConditions(List<Integer> conditions) {
+		this.conditions = conditions;
+	}
+
+	/**
+	 * Set the maximum number of consecutive trials of the same condition, 0 for no limit.
+	 * Not supported together with latinSquare, sequence creation fails in that case.
+	 */
+	@Override
+	public void setMaxRepeats(int maxRepeats) {
+		super.setMaxRepeats(maxRepeats);
+	}
+
+	/**
+	 * The trials are always distributed evenly over the child elements.
+	 *
+	 * @throws IllegalArgumentException if balanced is false
+	 */
+	@Override
+	public void setBalanced(boolean balanced) {
+		if (!balanced) {
+			throw new IllegalArgumentException("CounterbalancedListSelector always balances the trials");
+		}
+		super.setBalanced(balanced);
+	}
+
+	public boolean isBalancedTransitions() {
+		return generator.isBalancedTransitions();
+	}
+
+	public void setBalancedTransitions(boolean balancedTransitions) {
+		generator.setBalancedTransitions(balancedTransitions);
+	}
+
+	public boolean isLatinSquare() {
+		return latinSquare;
+	}
+
+	/** Set whether to present the conditions in blocks, requires maxRepeats to be 0. */
+	public void setLatinSquare(boolean latinSquare) {
+		this.latinSquare = latinSquare;
+	}
+
+	public Integer getParticipantNumber() {
+		return participantNumber;
+	}
+
+	public void setParticipantNumber(Integer participantNumber) {
+		this.participantNumber = participantNumber;
+	}
+}
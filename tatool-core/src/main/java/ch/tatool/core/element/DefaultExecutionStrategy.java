@@ -21,6 +21,9 @@ package ch.tatool.core.element;
 import java.util.LinkedList;
 import java.util.Queue;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import ch.tatool.core.data.Misc;
 import ch.tatool.element.ElementSelector;
 import ch.tatool.element.Element;
@@ -34,13 +37,27 @@ import ch.tatool.exec.ExecutionContext;
  *
  * This strategy updates the stack so that the top element contains an executable element. 
  * 
+ * If an ExecutionPlan is set, the selectors of the elements compiled into the plan are taken
+ * from it instead of checking the handlers of the top element on each step.
+ * 
  * @author Michael Ruflin.
  */
 public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryElementSupport {
 
+	private Logger logger = LoggerFactory.getLogger(DefaultExecutionStrategy.class);
+	
+	/**
+	 * Maximum number of stack updates to find the next executable element. Guards against
+	 * selectors that keep selecting elements without ever reaching an executable one.
+	 */
+	private static final int MAX_STACK_UPDATES = 10000;
+
 	/** List of temporary elements to be executed. */
 	private Queue<Element> temporaryElements;
 	
+	/** Compiled element hierarchy, null if not used. */
+	private ExecutionPlan executionPlan;
+	
 	public DefaultExecutionStrategy() {
 		temporaryElements = new LinkedList<Element>();
 	}
@@ -49,6 +66,15 @@ public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryEle
 		temporaryElements.add(element);
 	}
 	
+	public ExecutionPlan getExecutionPlan() {
+		return executionPlan;
+	}
+	
+	/** Set the compiled element hierarchy to use, null to inspect the elements on each step. */
+	public void setExecutionPlan(ExecutionPlan executionPlan) {
+		this.executionPlan = executionPlan;
+	}
+	
 	/** Updates the stack
 	 * @return true if another element is ready for execution 
 	 */
@@ -62,8 +88,7 @@ public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryEle
 		}
 		
 		// make sure we don't loop forever
-		int x=0;
-		while (x < 100) {
+		for (int updates = 0; updates < MAX_STACK_UPDATES; updates++) {
 			if (isTopExecutable(tree)) {
 				return true;
 			}
@@ -85,6 +110,7 @@ public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryEle
 				}
 			}
 		}
+		logger.warn("No executable element found after {} stack updates", MAX_STACK_UPDATES);
 		
 		// remove the Execution outcome property if set
 		Misc.getOutcomeProperty().clearValue(executionContext);
@@ -99,7 +125,8 @@ public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryEle
 		Element top = tree.getTop();
 		// check whether there is an executable
 		if (top != null && top.getExecutable() != null) {
-			// check whether it is already executed
+			// check whether it is already executed. The flag is set by the executor and therefore
+			// not part of the ExecutionPlan, with the CompactPropertyStore this is a field read
 			Object executed = top.getProperty(Element.EXECUTED);
 			if (executed == null || executed.equals(Boolean.FALSE)) {
 				return true;
@@ -124,6 +151,17 @@ public class DefaultExecutionStrategy implements ExecutionStrategy, TemporaryEle
 	 */
 	private boolean runTopSelectors(ExecutionContext executionContext, ElementTree tree) {
 		Element top = tree.getTop();
+		ElementSelector[] selectors = (executionPlan != null) ? executionPlan.getSelectors(top) : null;
+		if (selectors != null) {
+			for (ElementSelector selector : selectors) {
+				if (selector.selectNextElement(executionContext)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		// element not compiled, check its handlers
 		for (Object handler : top.getHandlers()) {
 			if (handler instanceof ElementSelector) {
 				boolean adapted = ((ElementSelector) handler).selectNextElement(executionContext);
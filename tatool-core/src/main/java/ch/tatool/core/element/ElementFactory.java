@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import ch.tatool.element.Element;
+
+/**
+ * Creates the child elements of a LazyListElement on demand.
+ */
+public interface ElementFactory {
+
+	/** Returns the number of elements this factory can create. */
+	public int getElementCount();
+
+	/**
+	 * Creates the element at the given index.
+	 * Each call has to return a new instance.
+	 */
+	public Element createElement(int index);
+}
@@ -19,8 +19,8 @@
 package ch.tatool.core.element;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.ListIterator;
 
 import ch.tatool.element.Element;
 import ch.tatool.element.Initializable;
@@ -60,38 +60,21 @@ public class ElementUtils {
 	 * Finds a handler or element in the current stack by a specific type
 	 * 
 	 * This method searches from the top of the stack down to the root element.
+	 * Results are cached per stack element, see StackHandlerIndex.
 	 */
 	public static Object findHandlerInStackByType(ExecutionContext context, Class<?> type) {
-		List<Element> elements = context.getElementStack();
-		ListIterator<Element> iterator = elements.listIterator(elements.size());
-		while (iterator.hasPrevious()) {
-			Element element = iterator.previous();
-			for (Object handler : element.getHandlers()) {
-				if (type.isAssignableFrom(handler.getClass())) {
-					return handler;
-				}
-			}
-		}
-		return null;
+		Object[] handlers = StackHandlerIndex.getIndex(context.getExecutor().getExecutionTree()).getHandlers(context.getElementStack(), type);
+		return handlers.length > 0 ? handlers[0] : null;
 	}
 	
 	/**
 	 * Finds list of handlers or elements in the current stack by a specific type
 	 * 
 	 * This method searches from the top of the stack down to the root element.
+	 * Results are cached per stack element, see StackHandlerIndex.
 	 */
 	public static List<Object> findHandlersInStackByType(ExecutionContext context, Class<?> type) {
-		List<Object> handlers = new ArrayList<Object>();
-		List<Element> elements = context.getElementStack();
-		ListIterator<Element> iterator = elements.listIterator(elements.size());
-		while (iterator.hasPrevious()) {
-			Element element = iterator.previous();
-			for (Object handler : element.getHandlers()) {
-				if (type.isAssignableFrom(handler.getClass())) {
-					handlers.add(handler);
-				}
-			}
-		}
-		return handlers;
+		Object[] handlers = StackHandlerIndex.getIndex(context.getExecutor().getExecutionTree()).getHandlers(context.getElementStack(), type);
+		return new ArrayList<Object>(Arrays.asList(handlers));
 	}
 }
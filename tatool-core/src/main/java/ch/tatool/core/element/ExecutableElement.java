@@ -57,4 +57,9 @@ public class ExecutableElement extends AbstractElement {
 			assignParent(this, executable);
 		}
 	}
+	
+	protected void invalidateChildIds() {
+		super.invalidateChildIds();
+		invalidateId(executable);
+	}
 }
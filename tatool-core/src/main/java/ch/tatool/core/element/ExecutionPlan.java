@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.ElementSelector;
+
+/**
+ * Precompiled view of an element hierarchy.
+ *
+ * The hierarchy is analysed once, when the plan is compiled: for each element the selectors
+ * among its handlers are stored in an array, so that DefaultExecutionStrategy does not have to
+ * check the type of all handlers of the top element on each step. Only this static part of
+ * the hierarchy is compiled, the execution state (e.g. whether an element has already been
+ * executed) is set by the executor on the elements and is still read from them.
+ *
+ * Elements that were not part of the hierarchy at compile time (e.g. temporary elements or
+ * the children of a LazyListElement, which are not compiled as that would create all of them)
+ * are not known to the plan. For them getSelectors returns null, and the caller inspects the
+ * handlers of the element directly, so the plan never grows during the execution.
+ *
+ * The compiled data is an immutable map which is replaced as a whole by invalidate, so
+ * lookups only read a volatile field and never lock. The plan assumes that the handlers of an
+ * element do not change after compilation. Call invalidate for elements that get modified
+ * nevertheless.
+ */
+public class ExecutionPlan {
+
+	/** Selectors per element, by identity. Never modified once published. */
+	private volatile Map<Element, ElementSelector[]> selectors;
+
+	private ExecutionPlan(Map<Element, ElementSelector[]> selectors) {
+		this.selectors = selectors;
+	}
+
+	/** Compiles the hierarchy below (and including) the given root element. */
+	public static ExecutionPlan compile(Element root) {
+		Map<Element, ElementSelector[]> selectors = new IdentityHashMap<Element, ElementSelector[]>();
+		if (root != null) {
+			LinkedList<Element> pending = new LinkedList<Element>();
+			pending.add(root);
+			while (!pending.isEmpty()) {
+				Element element = pending.removeFirst();
+				if (selectors.containsKey(element)) {
+					// element used at several places in the hierarchy
+					continue;
+				}
+				selectors.put(element, findSelectors(element));
+				if (!(element instanceof LazyListElement)) {
+					pending.addAll(element.getChildren());
+				}
+			}
+		}
+		return new ExecutionPlan(selectors);
+	}
+
+	/**
+	 * Returns the handlers of an element that are ElementSelectors, in handler order.
+	 *
+	 * @return the selectors or null if the element is not part of the plan
+	 */
+	public ElementSelector[] getSelectors(Element element) {
+		return selectors.get(element);
+	}
+
+	/** Drops the compiled data of an element, getSelectors returns null for it from now on. */
+	public synchronized void invalidate(Element element) {
+		if (selectors.containsKey(element)) {
+			Map<Element, ElementSelector[]> copy = new IdentityHashMap<Element, ElementSelector[]>(selectors);
+			copy.remove(element);
+			selectors = copy;
+		}
+	}
+
+	private static ElementSelector[] findSelectors(Element element) {
+		List<ElementSelector> result = new ArrayList<ElementSelector>();
+		for (Object handler : element.getHandlers()) {
+			if (handler instanceof ElementSelector) {
+				result.add((ElementSelector) handler);
+			}
+		}
+		return result.toArray(new ElementSelector[result.size()]);
+	}
+}
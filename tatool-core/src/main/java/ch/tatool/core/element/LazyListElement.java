@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.Executable;
+
+/**
+ * Execution element whose children are created on demand by an ElementFactory.
+ *
+ * getChildren returns a list view of the factory's elements. An element is created the first
+ * time it is accessed and kept in a cache of the cacheSize most recently used elements, so the
+ * memory used does not depend on the number of children. An element evicted from the cache
+ * is created anew on its next access, so all state kept in the evicted instance (e.g. its
+ * properties) is lost. The element accessed last is never evicted, selectors should access the
+ * selected element after any others. Elements that have to keep their state across accesses
+ * require a cache size covering all children.
+ *
+ * Selectors accessing the children by index or iterator (e.g. IteratedListSelector or
+ * SequenceListSelector) work as with a ListElement. LazyListSelector additionally creates
+ * the next elements ahead of time. Selectors copying the whole child list create all elements.
+ */
+public class LazyListElement extends AbstractElement {
+
+	private ElementFactory elementFactory;
+
+	/** Maximum number of created elements to keep. */
+	private int cacheSize = 16;
+
+	/** Created elements by index, in access order. */
+	private final Map<Integer, Element> cache = new LinkedHashMap<Integer, Element>(32, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		protected boolean removeEldestEntry(Map.Entry<Integer, Element> eldest) {
+			return size() > cacheSize;
+		}
+	};
+
+	/** List view of the children. */
+	private final List<Element> children = new AbstractList<Element>() {
+		public Element get(int index) {
+			return getChild(index);
+		}
+
+		public int size() {
+			return getChildCount();
+		}
+	};
+
+	public LazyListElement() {
+		super("lazy-list");
+	}
+
+	public List<Element> getChildren() {
+		return children;
+	}
+
+	/** Returns the number of children. */
+	public int getChildCount() {
+		return elementFactory != null ? elementFactory.getElementCount() : 0;
+	}
+
+	/** Returns the child at the given index, creating it if necessary. */
+	public Element getChild(int index) {
+		if (index < 0 || index >= getChildCount()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + getChildCount());
+		}
+		Element child = cache.get(index);
+		if (child == null) {
+			child = elementFactory.createElement(index);
+			assignParent(this, child);
+			cache.put(index, child);
+		}
+		return child;
+	}
+
+	/** Returns the number of children in the cache. */
+	public int getCachedChildCount() {
+		return cache.size();
+	}
+
+	/** Drops all created children. */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	protected void invalidateChildIds() {
+		super.invalidateChildIds();
+		// the cache is not set yet when called from the super constructor
+		if (cache != null) {
+			invalidateIds(new ArrayList<Element>(cache.values()));
+		}
+	}
+
+	/** Always returns null as this execution element only acts as a container for other elements. */
+	public Executable getExecutable() {
+		return null;
+	}
+
+	public ElementFactory getElementFactory() {
+		return elementFactory;
+	}
+
+	public void setElementFactory(ElementFactory elementFactory) {
+		this.elementFactory = elementFactory;
+		cache.clear();
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	/** Set the maximum number of created elements to keep, at least 1. */
+	public void setCacheSize(int cacheSize) {
+		this.cacheSize = Math.max(1, cacheSize);
+	}
+}
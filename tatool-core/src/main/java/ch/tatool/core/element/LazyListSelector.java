@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.Random;
+
+import ch.tatool.element.Element;
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Iterates through the children of a LazyListElement, creating only the next few elements
+ * ahead of the cursor.
+ *
+ * By default the children are executed once, in order. With randomOrder the children are
+ * executed in a new random order on each iteration, which costs one int per child.
+ * After each selection the next prefetchCount elements are created, so the memory used
+ * stays bounded by the cache size of the element regardless of the number of trials.
+ */
+public class LazyListSelector extends AbstractListSelector {
+
+	/** Number of iterations through the children, -1 for no limit. */
+	private int numIterations = 1;
+
+	/** Whether to execute the children in random order. */
+	private boolean randomOrder = false;
+
+	/** Number of elements to create ahead of the cursor. */
+	private int prefetchCount = 2;
+
+	private Random random = new Random();
+
+	private LazyListElement listElement;
+
+	private int executedIterations;
+
+	/** Position in the current iteration. */
+	private int cursor;
+
+	/** Order of the current iteration, null for the natural order. */
+	private int[] order;
+
+	public LazyListSelector() {
+	}
+
+	public LazyListSelector(int numIterations) {
+		this.numIterations = numIterations;
+	}
+
+	public void initialize(Element element) {
+		if (!(element instanceof LazyListElement)) {
+			throw new RuntimeException("LazyListSelector only supports Elements of type LazyListElement");
+		}
+		super.initialize(element);
+		listElement = (LazyListElement) element;
+		executedIterations = 0;
+		cursor = 0;
+		order = null;
+	}
+
+	public boolean selectNextElement(ExecutionContext context) {
+		int count = listElement.getChildCount();
+		if (count == 0) {
+			return false;
+		}
+
+		// start a new iteration if necessary
+		if (executedIterations == 0 || cursor >= count) {
+			if (executedIterations >= numIterations && numIterations >= 0) {
+				return false;
+			}
+			executedIterations++;
+			cursor = 0;
+			order = randomOrder ? createOrder(count) : null;
+		}
+
+		// create the upcoming elements of this iteration, as far as they fit into the cache.
+		// The selected element is accessed last, so it is evicted last while being executed.
+		int ahead = Math.min(prefetchCount, listElement.getCacheSize() - 1);
+		for (int i = cursor + 1; i <= cursor + ahead && i < count; i++) {
+			listElement.getChild(getIndex(i));
+		}
+		Element next = listElement.getChild(getIndex(cursor));
+		cursor++;
+		ElementUtils.initialize(next);
+		context.getExecutor().getExecutionTree().pushElement(next);
+		return true;
+	}
+
+	private int getIndex(int position) {
+		return order != null ? order[position] : position;
+	}
+
+	/** Creates a random permutation of the child indexes (Fisher-Yates). */
+	private int[] createOrder(int count) {
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = i;
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = result[i];
+			result[i] = result[j];
+			result[j] = tmp;
+		}
+		return result;
+	}
+
+	public int getNumIterations() {
+		return numIterations;
+	}
+
+	public void setNumIterations(int numIterations) {
+		this.numIterations = numIterations;
+	}
+
+	public int getExecutedIterations() {
+		return executedIterations;
+	}
+
+	public boolean isRandomOrder() {
+		return randomOrder;
+	}
+
+	public void setRandomOrder(boolean randomOrder) {
+		this.randomOrder = randomOrder;
+	}
+
+	public int getPrefetchCount() {
+		return prefetchCount;
+	}
+
+	/** Set the number of elements to create ahead of the cursor, should be below the cache size of the element. */
+	public void setPrefetchCount(int prefetchCount) {
+		this.prefetchCount = prefetchCount;
+	}
+}
@@ -58,6 +58,11 @@ public class ListElement extends AbstractElement {
 		assignParent(null, child);
 	}
 
+	protected void invalidateChildIds() {
+		super.invalidateChildIds();
+		invalidateIds(children);
+	}
+
 	/** Always returns null as this execution element only acts as a container for other elements. */ 
 	public Executable getExecutable() {
 		return null;
@@ -19,14 +19,16 @@
 package ch.tatool.core.element;
 
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.BeanNameAware;
 
+import ch.tatool.core.data.KeyedPropertyHolder;
+import ch.tatool.core.data.PropertyKey;
 import ch.tatool.element.Element;
 import ch.tatool.element.Node;
 
@@ -37,7 +39,7 @@ import ch.tatool.element.Node;
  * 
  * @author Michael Ruflin
  */
-public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAware {
+public class NodeImpl extends AbstractPropertyHolder implements Node, KeyedPropertyHolder, BeanNameAware {
 	
 	private Logger logger = LoggerFactory.getLogger(NodeImpl.class);
 
@@ -47,6 +49,12 @@ public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAw
     /** Parent node. */
     private Node parent;
     
+    /** Cached full id, null if it needs to be recalculated. */
+    private volatile String id;
+    
+    /** Cached property keys, built for the id they contain. Null if not yet built. */
+    private volatile PropertyKeys propertyKeys;
+    
     public NodeImpl() {
     	this("node");
     }
@@ -73,6 +81,7 @@ public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAw
  
     public void setId(String id) {
         this.localId = id;
+        invalidateId();
     }
     
     public String getLocalId() {
@@ -81,31 +90,28 @@ public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAw
 
     public void setLocalId(String id) {
         this.localId = id;
+        invalidateId();
     }
 
     /**
      * Unique id of the element. This includes the localId of the parent elements as well
-     * and has to be unique in a element/handler tree
+     * and has to be unique in a element/handler tree.
+     * 
+     * The id is cached and only recalculated after the local id or the parent
+     * of this node or one of its ancestors changed.
      */
     public String getId() {
-        LinkedList<Node> nodes = new LinkedList<Node>();
-        Node u = this;
-        while (u != null) {
-            nodes.addFirst(u);
-            u = u.getParent();
-        }
-        StringBuilder builder = new StringBuilder();
-        Iterator<Node> it = nodes.iterator();
-        
-        // add first element (we know we have at least one!)
-        NodeImpl n = (NodeImpl) it.next();
-        builder.append(n.getLocalId());
-        while (it.hasNext()) {
-        	n = (NodeImpl) it.next();
-            builder.append('.');
-            builder.append(n.getLocalId());
-        }
-        return builder.toString();
+    	String result = id;
+    	if (result == null) {
+    		if (parent == null) {
+    			result = localId;
+    		} else {
+    			// the parent id is cached as well, so this is O(1) for already calculated parents
+    			result = parent.getId() + '.' + localId;
+    		}
+    		id = result;
+    	}
+    	return result;
     }
 
     public Node getParent() {
@@ -114,6 +120,71 @@ public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAw
 
     public void setParent(Node parent) {
         this.parent = parent;
+        invalidateId();
+    }
+    
+    /**
+     * Get the key used to store the given property of this node in a DataContainer.
+     * 
+     * Keys are cached per property name until the id of the node changes. The cache is
+     * replaced as a whole when a key is added, so lookups don't lock. Concurrent callers
+     * may build the same key twice, which is harmless as keys are compared by value.
+     */
+    public PropertyKey getPropertyKey(String propertyName) {
+    	String nodeId = getId();
+    	PropertyKeys keys = propertyKeys;
+    	if (keys == null || keys.nodeId != nodeId) {
+    		// the id changed since the keys were built
+    		keys = new PropertyKeys(nodeId, new HashMap<String, PropertyKey>());
+    	}
+    	PropertyKey key = keys.keys.get(propertyName);
+    	if (key == null) {
+    		key = new PropertyKey(nodeId, propertyName);
+    		Map<String, PropertyKey> newKeys = new HashMap<String, PropertyKey>(keys.keys);
+    		newKeys.put(propertyName, key);
+    		propertyKeys = new PropertyKeys(nodeId, newKeys);
+    	}
+    	return key;
+    }
+    
+    /**
+     * Invalidates the cached id and property keys of this node and all nodes below it.
+     * Called whenever the local id or the parent changes.
+     */
+    protected void invalidateId() {
+    	id = null;
+    	propertyKeys = null;
+    	invalidateChildIds();
+    }
+    
+    /**
+     * Invalidates the cached ids of the child nodes.
+     * Subclasses holding child nodes have to overwrite this method.
+     */
+    protected void invalidateChildIds() {
+    	// leaf node by default
+    }
+    
+    /**
+     * Invalidates the cached ids of the provided objects if they are of type NodeImpl
+     */
+    protected static void invalidateIds(Collection<?> objects) {
+    	// might be called during construction before the collection is set
+    	if (objects == null) {
+    		return;
+    	}
+    	for (Object object : objects) {
+    		invalidateId(object);
+    	}
+    }
+    
+    /**
+     * Invalidates the cached id of the provided object if it is of type NodeImpl
+     */
+    protected static void invalidateId(Object object) {
+    	if (object instanceof NodeImpl) {
+    		((NodeImpl) object).invalidateId();
+    	}
     }
     
     /**
@@ -144,4 +215,15 @@ public class NodeImpl extends AbstractPropertyHolder implements Node, BeanNameAw
     	}
     }
     
+    /** Property keys built for one node id, never modified once published. */
+    private static class PropertyKeys {
+    	private final String nodeId;
+    	private final Map<String, PropertyKey> keys;
+    	
+    	private PropertyKeys(String nodeId, Map<String, PropertyKey> keys) {
+    		this.nodeId = nodeId;
+    		this.keys = keys;
+    	}
+    }
+    
 }
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.Set;
+
+/**
+ * Storage backing an AbstractPropertyHolder.
+ */
+public interface PropertyStore {
+
+	/** Get a property value, null if not set. */
+	public Object get(String name);
+	
+	/** Set a property value. */
+	public void put(String name, Object value);
+	
+	/** Remove a property value. */
+	public void remove(String name);
+	
+	/** Get the names of all stored properties. */
+	public Set<String> keySet();
+	
+	/** Remove all property values. */
+	public void clear();
+	
+	/** Create a new, empty store of the same kind. */
+	public PropertyStore newStore();
+}
@@ -19,6 +19,7 @@
 package ch.tatool.core.element;
 
 import java.util.List;
+import java.util.Random;
 
 import ch.tatool.element.Element;
 import ch.tatool.exec.ExecutionContext;
@@ -39,6 +40,9 @@ public class RandomListSelector extends AbstractListSelector {
     /** Trials executed so far. */
     private int executedIterations = 0;
     
+    /** Random generator of this selector, not shared with other threads as Math.random() is. */
+    private Random random = new Random();
+    
     public RandomListSelector() {}
     
     public RandomListSelector(int numberOfTrials) {
@@ -65,7 +69,7 @@ public class RandomListSelector extends AbstractListSelector {
         }
         
         // push a random element
-        int index = ((int) ((Math.random() * (long) elementCount))) % elementCount;
+        int index = random.nextInt(elementCount);
         Element element = elements.get(index);
         ElementUtils.initialize(element);
         executionContext.getExecutor().getExecutionTree().pushElement(element);
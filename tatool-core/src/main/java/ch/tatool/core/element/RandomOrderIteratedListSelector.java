@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import ch.tatool.element.Element;
 import ch.tatool.exec.ExecutionContext;
@@ -36,13 +37,16 @@ import ch.tatool.exec.ExecutionContext;
  */
 public class RandomOrderIteratedListSelector extends IteratedListSelector {
 
+	/** Random generator of this selector. */
+	private Random random = new Random();
+
     /**
      * Creates an iterator that returns the elements in the group in a random order
      * compared to the standard order the elements have been added to the list
      */
     protected Iterator<Element> createIterator(ExecutionContext context) {
         List<Element> elements = new ArrayList<Element>(getExecutionElement().getChildren());
-        Collections.shuffle(elements);
+        Collections.shuffle(elements, random);
         return elements.iterator();
     }
 }
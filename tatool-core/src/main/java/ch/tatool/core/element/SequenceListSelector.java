@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.List;
+import java.util.Random;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.tatool.core.data.IntArrayProperty;
+import ch.tatool.core.data.IntegerProperty;
+import ch.tatool.core.data.LongProperty;
+import ch.tatool.data.Module;
+import ch.tatool.data.ModuleSession;
+import ch.tatool.element.Element;
+import ch.tatool.exec.ExecutionContext;
+import ch.tatool.exec.ExecutionPhaseListener;
+
+/**
+ * Serves the elements of the group in a pre-generated random order.
+ *
+ * The order of the whole session is generated at session start by a TrialSequenceGenerator
+ * and stored in the module session as an array of child indexes, selecting an element
+ * only advances a cursor in that array. The cursor continues across re-initializations of
+ * the element, so the configured number of trials is served once per session.
+ *
+ * The sequences are reproducible: the random generator of each session is seeded with a per
+ * participant seed, stored in the module on first use (or the configured seed), and the
+ * number of sequences generated before. Seed and sequence number are stored in the session
+ * together with the sequence.
+ */
+public class SequenceListSelector extends AbstractListSelector implements ExecutionPhaseListener {
+
+	private Logger logger = LoggerFactory.getLogger(SequenceListSelector.class);
+
+	public static final String PROPERTY_SEQUENCE = "sequence";
+	public static final String PROPERTY_SEQUENCE_SEED = "sequenceSeed";
+	public static final String PROPERTY_SEQUENCE_NUMBER = "sequenceNumber";
+
+	private static IntArrayProperty sequenceProperty = new IntArrayProperty(PROPERTY_SEQUENCE);
+	private static LongProperty seedProperty = new LongProperty(PROPERTY_SEQUENCE_SEED);
+	private static IntegerProperty sequenceNumberProperty = new IntegerProperty(PROPERTY_SEQUENCE_NUMBER);
+
+	/** Number of trials per session, -1 to serve each element once. */
+	private int numIterations = -1;
+
+	/** Fixed seed to use for all participants, null to generate a seed per participant. */
+	private Long seed;
+
+	private TrialSequenceGenerator generator = new TrialSequenceGenerator();
+
+	/** Session the current sequence belongs to. */
+	private ModuleSession sequenceSession;
+
+	/** Sequence of the current session. */
+	private int[] sequence;
+
+	/** Position of the next index to serve. */
+	private int cursor;
+
+	public SequenceListSelector() {
+	}
+
+	public SequenceListSelector(int numIterations) {
+		this.numIterations = numIterations;
+	}
+
+	public void processExecutionPhase(ExecutionContext context) {
+		switch (context.getPhase()) {
+		case SESSION_START:
+			prepareSequence(context);
+			break;
+		default:
+			// do nothing
+		}
+	}
+
+	public boolean selectNextElement(ExecutionContext context) {
+		// the session start phase is not guaranteed to reach this selector
+		if (sequenceSession != context.getExecutionData().getModuleSession()) {
+			prepareSequence(context);
+		}
+		if (cursor >= sequence.length) {
+			return false;
+		}
+
+		List<Element> elements = getExecutionElement().getChildren();
+		int index = sequence[cursor];
+		if (index >= elements.size()) {
+			logger.warn("Sequence index {} out of range, the element has {} children", index, elements.size());
+			return false;
+		}
+		cursor++;
+
+		Element element = elements.get(index);
+		ElementUtils.initialize(element);
+		context.getExecutor().getExecutionTree().pushElement(element);
+		return true;
+	}
+
+	/** Loads the sequence of the current session, or generates it if there is none yet. */
+	private void prepareSequence(ExecutionContext context) {
+		ModuleSession session = context.getExecutionData().getModuleSession();
+		Element element = getExecutionElement();
+		sequenceSession = session;
+		cursor = 0;
+
+		sequence = sequenceProperty.getValue(session, element);
+		if (sequence == null) {
+			sequence = generateSequence(context);
+			sequenceProperty.setValue(session, element, sequence);
+		}
+	}
+
+	private int[] generateSequence(ExecutionContext context) {
+		Module module = context.getExecutionData().getModule();
+		ModuleSession session = context.getExecutionData().getModuleSession();
+		Element element = getExecutionElement();
+
+		// participant seed
+		long participantSeed;
+		if (seed != null) {
+			participantSeed = seed;
+		} else if (seedProperty.isSet(module, element)) {
+			participantSeed = seedProperty.getValue(module, element);
+		} else {
+			participantSeed = new Random().nextLong();
+			seedProperty.setValue(module, element, participantSeed);
+		}
+
+		// number of the sequence for this participant
+		int sequenceNumber = sequenceNumberProperty.getValue(module, element, 0);
+		sequenceNumberProperty.setValue(module, element, sequenceNumber + 1);
+
+		seedProperty.setValue(session, element, participantSeed);
+		sequenceNumberProperty.setValue(session, element, sequenceNumber);
+
+		int elementCount = element.getChildren().size();
+		int length = numIterations < 0 ? elementCount : numIterations;
+		return createSequence(context, elementCount, length, createRandom(participantSeed, sequenceNumber));
+	}
+
+	/**
+	 * Creates the sequence of child indexes. Subclasses can overwrite this method to
+	 * generate the sequence differently, the result has to be reproducible from the passed
+	 * Random and the configuration of the selector.
+	 */
+	protected int[] createSequence(ExecutionContext context, int elementCount, int length, Random random) {
+		return generator.generate(elementCount, length, random);
+	}
+
+	/** Creates the random generator for a sequence. */
+	public static Random createRandom(long participantSeed, int sequenceNumber) {
+		return new Random(participantSeed + sequenceNumber * 0x9E3779B97F4A7C15L);
+	}
+
+	/** Returns the sequence of the current session, null if not generated yet. */
+	public int[] getSequence() {
+		return sequence;
+	}
+
+	/** Returns the number of elements served in the current session. */
+	public int getCursor() {
+		return cursor;
+	}
+
+	public int getNumIterations() {
+		return numIterations;
+	}
+
+	/** Set the number of trials per session, -1 to serve each element once. */
+	public void setNumIterations(int numIterations) {
+		this.numIterations = numIterations;
+	}
+
+	public Long getSeed() {
+		return seed;
+	}
+
+	/** Set a fixed seed for all participants, null to generate a seed per participant. */
+	public void setSeed(Long seed) {
+		this.seed = seed;
+	}
+
+	public int getMaxRepeats() {
+		return generator.getMaxRepeats();
+	}
+
+	public void setMaxRepeats(int maxRepeats) {
+		generator.setMaxRepeats(maxRepeats);
+	}
+
+	public boolean isBalanced() {
+		return generator.isBalanced();
+	}
+
+	public void setBalanced(boolean balanced) {
+		generator.setBalanced(balanced);
+	}
+}
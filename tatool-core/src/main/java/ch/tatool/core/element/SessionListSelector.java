@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import ch.tatool.core.data.TrialHistoryCache;
 import ch.tatool.element.Element;
 import ch.tatool.exec.ExecutionContext;
 
@@ -88,8 +89,7 @@ public class SessionListSelector extends AbstractListSelector {
 
 	/** Returns whether a new iterator can be created. */
 	protected boolean canCreateIterator(ExecutionContext context) {
-		long sessionNr = context.getDataService().getSessionCount(
-				context.getExecutionData().getModule(), includeUnfinished);
+		long sessionNr = TrialHistoryCache.getSessionCount(context, includeUnfinished);
 		return (sessionList.contains((int) (sessionNr + 1)))
 				&& ((executedIterations < numIterations) || (numIterations < 0));
 	}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.ElementTree;
+
+/**
+ * Index of the handlers in an element stack by handler type, used by ElementUtils.
+ *
+ * The index keeps one frame per stack element. Each frame caches, per requested type, the
+ * matching handlers of its element followed by the ones of the frames below it, so a lookup
+ * only needs the top frame.
+ *
+ * A lookup only compares the stack size and the top element with the frames, and checks
+ * that no handlers of any AbstractElement have changed since the last lookup. Otherwise the
+ * frames are compared with the stack: frames of popped elements are dropped and frames for
+ * pushed elements are added, frames below the changes keep their cached results. A frame is
+ * rebuilt as well if the handlers of its element have changed, which is detected by the
+ * modification count of an AbstractElement and by the identity and size of the handler list
+ * for other elements. As the latter are not covered by the short check, the stack is always
+ * compared if it contains such elements.
+ *
+ * The short check assumes that the stack only changes at the top, as done by ElementTree:
+ * an element can not be replaced below an unchanged top element of the same depth between
+ * two lookups.
+ */
+class StackHandlerIndex {
+
+	private static final Object[] NO_HANDLERS = new Object[0];
+
+	/** Index per element tree. Guarded by itself. */
+	private static final Map<ElementTree, StackHandlerIndex> indexes = new WeakHashMap<ElementTree, StackHandlerIndex>();
+
+	private Frame[] frames = new Frame[16];
+	private int depth = 0;
+
+	/** Value of AbstractElement.getAllHandlerModCount at the last comparison of the stack. */
+	private int allHandlerModCount = -1;
+
+	/** Number of frames for elements that are no AbstractElement. */
+	private int untrackedFrames = 0;
+
+	/** Get the index for the stack of an element tree. */
+	static StackHandlerIndex getIndex(ElementTree tree) {
+		synchronized (indexes) {
+			StackHandlerIndex index = indexes.get(tree);
+			if (index == null) {
+				index = new StackHandlerIndex();
+				indexes.put(tree, index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Returns the handlers in the stack that are of the given type, from the top of the stack
+	 * down to the root element. The returned array must not be modified.
+	 */
+	synchronized Object[] getHandlers(List<Element> stack, Class<?> type) {
+		int size = stack.size();
+		if (size == 0) {
+			clear(0);
+			return NO_HANDLERS;
+		}
+		int modCount = AbstractElement.getAllHandlerModCount();
+		if (size != depth || frames[depth - 1].element != stack.get(size - 1)
+				|| modCount != allHandlerModCount || untrackedFrames > 0) {
+			update(stack);
+			allHandlerModCount = modCount;
+		}
+		return frames[depth - 1].getHandlers(type);
+	}
+
+	/** Brings the frames in line with the stack. */
+	private void update(List<Element> stack) {
+		int i = 0;
+		for (Element element : stack) {
+			if (i < depth) {
+				Frame frame = frames[i];
+				if (frame.element == element && frame.isCurrent()) {
+					i++;
+					continue;
+				}
+				// the stack differs from here on
+				clear(i);
+			}
+			push(element);
+			i++;
+		}
+		if (i < depth) {
+			clear(i);
+		}
+	}
+
+	private void push(Element element) {
+		if (depth == frames.length) {
+			Frame[] newFrames = new Frame[depth * 2];
+			System.arraycopy(frames, 0, newFrames, 0, depth);
+			frames = newFrames;
+		}
+		Frame below = depth > 0 ? frames[depth - 1] : null;
+		Frame frame = new Frame(element, below);
+		if (!frame.tracked) {
+			untrackedFrames++;
+		}
+		frames[depth++] = frame;
+	}
+
+	private void clear(int newDepth) {
+		for (int i = newDepth; i < depth; i++) {
+			if (!frames[i].tracked) {
+				untrackedFrames--;
+			}
+			frames[i] = null;
+		}
+		depth = newDepth;
+	}
+
+	/** Handlers of one stack element. */
+	private static class Frame {
+		private final Element element;
+		private final Frame below;
+
+		/** Whether changes of the handlers are counted by the element. */
+		private final boolean tracked;
+		private final int handlerModCount;
+		private final List<Object> handlerList;
+		private final Object[] handlers;
+
+		/** Matching handlers of this and all lower frames, by type. */
+		private final Map<Class<?>, Object[]> handlersByType = new HashMap<Class<?>, Object[]>();
+
+		private Frame(Element element, Frame below) {
+			this.element = element;
+			this.below = below;
+			this.tracked = element instanceof AbstractElement;
+			// read the count first, so that a concurrent change makes the frame outdated
+			this.handlerModCount = tracked ? ((AbstractElement) element).getHandlerModCount() : 0;
+			this.handlerList = element.getHandlers();
+			this.handlers = handlerList.toArray();
+		}
+
+		/** Whether the handlers of the element are still the ones of this frame. */
+		private boolean isCurrent() {
+			if (tracked) {
+				return handlerModCount == ((AbstractElement) element).getHandlerModCount();
+			}
+			List<Object> current = element.getHandlers();
+			return current == handlerList && current.size() == handlers.length;
+		}
+
+		private Object[] getHandlers(Class<?> type) {
+			Object[] result = handlersByType.get(type);
+			if (result == null) {
+				List<Object> matching = new ArrayList<Object>();
+				for (Object handler : handlers) {
+					if (type.isAssignableFrom(handler.getClass())) {
+						matching.add(handler);
+					}
+				}
+				Object[] belowHandlers = below != null ? below.getHandlers(type) : NO_HANDLERS;
+				if (matching.isEmpty()) {
+					result = belowHandlers;
+				} else {
+					result = new Object[matching.size() + belowHandlers.length];
+					matching.toArray(result);
+					System.arraycopy(belowHandlers, 0, result, matching.size(), belowHandlers.length);
+				}
+				handlersByType.put(type, result);
+			}
+			return result;
+		}
+	}
+}
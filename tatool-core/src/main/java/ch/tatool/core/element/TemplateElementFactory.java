@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+
+import ch.tatool.element.Element;
+
+/**
+ * ElementFactory that creates elements from a template bean and a parameter table.
+ *
+ * The template has to be a prototype scoped element bean in the module configuration, so
+ * that each lookup returns a new instance. The parameter table contains one row per element
+ * to create. Its first line holds the property paths to set (e.g. executable.stimulus),
+ * each following line the values for one element. Values are separated by the separator
+ * (comma by default) and converted to the property types by Spring.
+ *
+ * Each element gets the local id templateBeanName-index, as the bean name set by Spring is
+ * the same for all of them. A localId column in the table overrides it.
+ *
+ * Only the parameter table is held in memory, the elements are created when requested.
+ * The table is parsed on first use, so the separator may be set before or after it.
+ */
+public class TemplateElementFactory implements ElementFactory, BeanFactoryAware {
+
+	private BeanFactory beanFactory;
+
+	/** Name of the prototype bean to use as template. */
+	private String templateBeanName;
+
+	private String separator = ",";
+
+	/** Parameter table as set, parsed on first use. */
+	private String parameterTable;
+
+	/** Property paths, one per column. Null until the table is parsed. */
+	private String[] propertyNames;
+
+	/** Parameter values, one array per element. Null until the table is parsed. */
+	private String[][] rows;
+
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.beanFactory = beanFactory;
+	}
+
+	public int getElementCount() {
+		parseParameterTable();
+		return rows.length;
+	}
+
+	public Element createElement(int index) {
+		if (beanFactory == null || templateBeanName == null) {
+			throw new IllegalStateException("TemplateElementFactory requires a bean factory and a template bean name");
+		}
+		if (!beanFactory.isPrototype(templateBeanName)) {
+			throw new IllegalStateException("Template bean " + templateBeanName + " has to be prototype scoped");
+		}
+		Element element = (Element) beanFactory.getBean(templateBeanName);
+		if (element instanceof NodeImpl) {
+			((NodeImpl) element).setLocalId(templateBeanName + "-" + index);
+		}
+		parseParameterTable();
+		BeanWrapper wrapper = new BeanWrapperImpl(element);
+		String[] row = rows[index];
+		for (int i = 0; i < propertyNames.length; i++) {
+			wrapper.setPropertyValue(propertyNames[i], row[i]);
+		}
+		return element;
+	}
+
+	/** Parses the parameter table, unless it has been parsed already. */
+	private void parseParameterTable() {
+		if (rows != null) {
+			return;
+		}
+		List<String[]> parsed = new ArrayList<String[]>();
+		String[] header = null;
+		String table = parameterTable != null ? parameterTable : "";
+		for (String line : table.split("\r?\n")) {
+			if (line.trim().length() == 0) {
+				continue;
+			}
+			String[] values = line.split(Pattern.quote(separator), -1);
+			for (int i = 0; i < values.length; i++) {
+				values[i] = values[i].trim();
+			}
+			if (header == null) {
+				header = values;
+			} else if (values.length != header.length) {
+				throw new IllegalArgumentException("Parameter table row " + (parsed.size() + 1) + " has " + values.length + " values for " + header.length + " columns");
+			} else {
+				parsed.add(values);
+			}
+		}
+		propertyNames = header != null ? header : new String[0];
+		rows = parsed.toArray(new String[parsed.size()][]);
+	}
+
+	public String getTemplateBeanName() {
+		return templateBeanName;
+	}
+
+	public void setTemplateBeanName(String templateBeanName) {
+		this.templateBeanName = templateBeanName;
+	}
+
+	public String getSeparator() {
+		return separator;
+	}
+
+	/** Set the value separator. */
+	public void setSeparator(String separator) {
+		this.separator = separator;
+		rows = null;
+	}
+
+	public String getParameterTable() {
+		return parameterTable;
+	}
+
+	/** Set the parameter table, the first line holding the property paths. */
+	public void setParameterTable(String parameterTable) {
+		this.parameterTable = parameterTable;
+		rows = null;
+	}
+}
@@ -19,8 +19,7 @@
 package ch.tatool.core.element;
 
 import java.util.Iterator;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.SwingUtilities;
 
@@ -54,10 +53,10 @@ public class TimerListSelector extends AbstractListSelector implements Execution
     /** Iterator that holds the current iteration order. */
     private Iterator<Element> iterator;
     
-    private TimerTask stopTask;
+    /** Task stopping the execution, scheduled with the shared timer service. */
+    private ScheduledFuture<?> stopTask;
     private boolean timerRunning;
     private boolean canCreateIterator;
-    private Timer execTimer;
     
     public TimerListSelector() { }
     
@@ -71,7 +70,6 @@ public class TimerListSelector extends AbstractListSelector implements Execution
     public void initialize(Element element) {
     	super.initialize(element);
         iterator = null;
-        execTimer = new Timer();
         canCreateIterator = true;
         timerRunning = false;
         executedIterations = 0;
@@ -139,7 +137,7 @@ public class TimerListSelector extends AbstractListSelector implements Execution
 	public void startExecution(final ExecutionContext context) {
 		if (!timerRunning) {
 			timerRunning = true;
-			stopTask = new TimerTask() {
+			stopTask = TimerService.getDefault().schedule(new Runnable() {
 				public void run() {
 					SwingUtilities.invokeLater(new Runnable() {
 						public void run() {
@@ -147,8 +145,7 @@ public class TimerListSelector extends AbstractListSelector implements Execution
 						}
 					});
 				}
-			};
-			execTimer.schedule(stopTask, timeout);
+			}, timeout);
 		}
 	}
 
@@ -161,7 +158,8 @@ public class TimerListSelector extends AbstractListSelector implements Execution
 	}
 	
 	public void stopTimer() {
-		stopTask.cancel();
+		TimerService.getDefault().cancel(stopTask);
+		stopTask = null;
 		canCreateIterator = false;
 		iterator = null;
 		timerRunning = false;
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shared scheduling service for timeouts and other timed tasks.
+ *
+ * All tasks run on a single daemon thread, which is created once instead of one
+ * java.util.Timer thread per trial. Tasks therefore have to be short, long running
+ * work should be handed over to another thread (e.g. with SwingUtilities.invokeLater).
+ *
+ * Cancelling a task through the returned ScheduledFuture only marks the task as cancelled,
+ * the task itself is dropped once it reaches the head of the queue. Every PURGE_INTERVAL
+ * cancellations the queue is purged, so that long timeouts that are cancelled early do
+ * not pile up.
+ *
+ * The service keeps track of how late tasks run compared to their target time.
+ */
+public class TimerService {
+
+	private static Logger logger = LoggerFactory.getLogger(TimerService.class);
+
+	/** Number of cancellations after which cancelled tasks are removed from the queue. */
+	private static final int PURGE_INTERVAL = 256;
+
+	private static final TimerService defaultService = new TimerService("tatool-timer");
+
+	private final ScheduledThreadPoolExecutor executor;
+
+	private final AtomicLong cancelCount = new AtomicLong();
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong totalLatencyNanos = new AtomicLong();
+	private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+	public TimerService(final String threadName) {
+		executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, threadName);
+				thread.setDaemon(true);
+				// timeouts are part of the measurements, don't let them queue behind other threads
+				thread.setPriority(Thread.MAX_PRIORITY);
+				return thread;
+			}
+		});
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/** Get the service shared by all handlers and selectors. */
+	public static TimerService getDefault() {
+		return defaultService;
+	}
+
+	/**
+	 * Schedule a task to run once.
+	 *
+	 * @param delay the delay in milliseconds
+	 * @return the future to use for cancelling the task
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delay) {
+		long target = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+		return executor.schedule(new MeasuredTask(task, target, 0), delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Schedule a task to run periodically at a fixed rate.
+	 *
+	 * @param initialDelay the delay of the first run in milliseconds
+	 * @param period the period in milliseconds
+	 * @return the future to use for cancelling the task
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period) {
+		long target = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(initialDelay);
+		return executor.scheduleAtFixedRate(new MeasuredTask(task, target, TimeUnit.MILLISECONDS.toNanos(period)),
+				initialDelay, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancel a task. Accepts null for convenience.
+	 *
+	 * @return true if the task has been cancelled before it ran (for the last time)
+	 */
+	public boolean cancel(ScheduledFuture<?> future) {
+		if (future == null) {
+			return false;
+		}
+		boolean cancelled = future.cancel(false);
+		if (cancelled && cancelCount.incrementAndGet() % PURGE_INTERVAL == 0) {
+			executor.purge();
+		}
+		return cancelled;
+	}
+
+	/** Returns the number of task runs. */
+	public long getRunCount() {
+		return runCount.get();
+	}
+
+	/** Returns the mean delay between the target time of a task and its actual start, in nanoseconds. */
+	public long getMeanLatencyNanos() {
+		long runs = runCount.get();
+		return runs > 0 ? totalLatencyNanos.get() / runs : 0;
+	}
+
+	/** Returns the largest delay between the target time of a task and its actual start, in nanoseconds. */
+	public long getMaxLatencyNanos() {
+		return maxLatencyNanos.get();
+	}
+
+	/** Resets the latency statistics. */
+	public void resetStatistics() {
+		runCount.set(0);
+		totalLatencyNanos.set(0);
+		maxLatencyNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "TimerService[queued=" + executor.getQueue().size() + ", runs=" + runCount.get()
+				+ ", meanLatencyNanos=" + getMeanLatencyNanos() + ", maxLatencyNanos=" + maxLatencyNanos.get() + "]";
+	}
+
+	private void recordLatency(long latency) {
+		runCount.incrementAndGet();
+		totalLatencyNanos.addAndGet(latency);
+		long max = maxLatencyNanos.get();
+		while (latency > max && !maxLatencyNanos.compareAndSet(max, latency)) {
+			max = maxLatencyNanos.get();
+		}
+	}
+
+	/** Wraps a task, measuring how late each run starts. */
+	private class MeasuredTask implements Runnable {
+		private final Runnable task;
+		private final long period;
+		private long target;
+
+		private MeasuredTask(Runnable task, long target, long period) {
+			this.task = task;
+			this.target = target;
+			this.period = period;
+		}
+
+		public void run() {
+			recordLatency(Math.max(0, System.nanoTime() - target));
+			target += period;
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				// an exception would silently cancel periodic tasks
+				logger.error(e.getMessage(), e);
+			}
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import java.util.Random;
+
+/**
+ * Generates random trial orders as arrays of element indexes.
+ *
+ * The generated order only depends on the passed Random, so an order can be reproduced
+ * exactly by generating it again with a Random created from the same seed.
+ *
+ * Supported constraints:
+ * - maxRepeats: the same index occurs at most this many times in a row (0 for no limit)
+ * - balanced: each index occurs equally often. If the length is not a multiple of the
+ *   number of elements, the remaining occurrences go to randomly chosen, distinct indexes.
+ *
+ * A balanced sequence of n trials over m elements is generated in O(n log m).
+ */
+public class TrialSequenceGenerator {
+
+	/** Maximum number of times the same index may occur in a row, 0 for no limit. */
+	private int maxRepeats = 0;
+
+	/** Whether all indexes occur equally often. */
+	private boolean balanced = true;
+
+	public TrialSequenceGenerator() {
+	}
+
+	public TrialSequenceGenerator(int maxRepeats, boolean balanced) {
+		this.maxRepeats = maxRepeats;
+		this.balanced = balanced;
+	}
+
+	/**
+	 * Generates a sequence.
+	 *
+	 * @param elementCount the number of elements, indexes are in the range 0 to elementCount - 1
+	 * @param length the length of the sequence
+	 * @param random the source of randomness
+	 * @throws IllegalArgumentException if the constraints cannot be satisfied
+	 */
+	public int[] generate(int elementCount, int length, Random random) {
+		if (length <= 0) {
+			return new int[0];
+		}
+		if (elementCount < 1) {
+			throw new IllegalArgumentException("Cannot generate a sequence without elements");
+		}
+		if (balanced) {
+			return generateBalanced(elementCount, length, random);
+		} else {
+			return generateUnbalanced(elementCount, length, random);
+		}
+	}
+
+	/** Draws each index independently, avoiding the last index once it reached maxRepeats. */
+	private int[] generateUnbalanced(int elementCount, int length, Random random) {
+		if (maxRepeats > 0 && elementCount == 1 && length > maxRepeats) {
+			throw new IllegalArgumentException("A single element cannot occur " + length + " times with at most " + maxRepeats + " repeats");
+		}
+		int[] sequence = new int[length];
+		int last = -1;
+		int run = 0;
+		for (int i = 0; i < length; i++) {
+			int index;
+			if (maxRepeats > 0 && run == maxRepeats) {
+				// draw from all other indexes
+				index = random.nextInt(elementCount - 1);
+				if (index >= last) {
+					index++;
+				}
+			} else {
+				index = random.nextInt(elementCount);
+			}
+			run = (index == last) ? run + 1 : 1;
+			last = index;
+			sequence[i] = index;
+		}
+		return sequence;
+	}
+
+	/**
+	 * Orders the balanced counts with ConstrainedSequenceGenerator, each index being a
+	 * condition of its own. With a maxRepeats limit an index is only drawn if the remaining
+	 * counts can still be arranged afterwards, so the generation never runs into a dead end.
+	 */
+	private int[] generateBalanced(int elementCount, int length, Random random) {
+		int[] conditions = new int[elementCount];
+		for (int i = 0; i < elementCount; i++) {
+			conditions[i] = i;
+		}
+		return new ConstrainedSequenceGenerator(maxRepeats, false).generate(conditions, length, random);
+	}
+
+	/** Returns how often each index occurs in a balanced sequence of the given length. */
+	static int[] getBalancedCounts(int elementCount, int length, Random random) {
+		int[] counts = new int[elementCount];
+		int base = length / elementCount;
+		for (int i = 0; i < elementCount; i++) {
+			counts[i] = base;
+		}
+		// distribute the remainder over distinct random indexes (partial Fisher-Yates shuffle)
+		int extra = length % elementCount;
+		int[] indexes = new int[elementCount];
+		for (int i = 0; i < elementCount; i++) {
+			indexes[i] = i;
+		}
+		for (int i = 0; i < extra; i++) {
+			int j = i + random.nextInt(elementCount - i);
+			int tmp = indexes[i];
+			indexes[i] = indexes[j];
+			indexes[j] = tmp;
+			counts[indexes[i]]++;
+		}
+		return counts;
+	}
+
+	public int getMaxRepeats() {
+		return maxRepeats;
+	}
+
+	/** Set the maximum number of times the same index may occur in a row, 0 for no limit. */
+	public void setMaxRepeats(int maxRepeats) {
+		this.maxRepeats = maxRepeats;
+	}
+
+	public boolean isBalanced() {
+		return balanced;
+	}
+
+	public void setBalanced(boolean balanced) {
+		this.balanced = balanced;
+	}
+}
@@ -47,11 +47,13 @@ public class ConfidenceRatingHandler extends NodeImpl implements ExecutionPhaseL
 		 // only set if we are applied to the current task
 		if (this.getParent() == context.getActiveElement()) {
 			ConfidenceRatingExecutable conf = new ConfidenceRatingExecutable();
+			sharePropertyStorage(conf);
 			conf.setLocalId("confidence-rating");
 			
 			TemporaryElementSupport support = TemporaryElementSupportUtil.getInstance().findTemporaryElementSupport(context);
 	    	if (support != null) {
 	    		ExecutableElement element = new ExecutableElement(conf);
+	    		sharePropertyStorage(element);
 	    		support.addTemporaryElement(element);
 	    	}
 
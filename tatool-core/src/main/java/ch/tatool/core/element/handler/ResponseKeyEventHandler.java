@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element.handler;
+
+/**
+ * KeyEventHandler whose key may count as a response to the current stimulus.
+ * 
+ * Key events of plain KeyEventHandlers (escape, pause, etc.) are never recorded as
+ * responses. Handlers implementing this interface opt in by returning true from
+ * isResponseKey, the time the key event was received is then recorded by the
+ * TimingService.
+ */
+public interface ResponseKeyEventHandler extends KeyEventHandler {
+
+	/** Returns whether the key of this handler counts as a response. */
+	public boolean isResponseKey();
+
+}
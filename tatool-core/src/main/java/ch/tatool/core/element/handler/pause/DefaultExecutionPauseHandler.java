@@ -18,7 +18,17 @@
  ******************************************************************************/
 package ch.tatool.core.element.handler.pause;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.tatool.core.data.LongProperty;
 import ch.tatool.core.element.NodeImpl;
+import ch.tatool.data.Trial;
+import ch.tatool.element.Executable;
 import ch.tatool.exec.ExecutionContext;
 import ch.tatool.exec.ExecutionPhase;
 import ch.tatool.exec.ExecutionPhaseListener;
@@ -27,11 +37,33 @@ import ch.tatool.exec.PhaseRunnableManager;
 
 /**
  * Pauses the execution between two elements.
+ * 
+ * By default the pause is implemented with Thread.sleep, which overshoots by the scheduling
+ * granularity of the operating system. In precise mode the thread sleeps until the tolerance
+ * before the end of the pause and then parks in short intervals until the end is reached.
+ * 
+ * If the executable about to be executed implements Prefetchable, it is given the chance to
+ * prepare its execution at the beginning of the pause. The requested and the achieved pause
+ * are stored in the trial of the following execution.
  */
 public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionPhaseListener, ExecutionPauseHandler {
 	
+	Logger logger = LoggerFactory.getLogger(DefaultExecutionPauseHandler.class);
+	
+	public static final String PROPERTY_REQUESTED_PAUSE = "requestedPause";
+	public static final String PROPERTY_ACHIEVED_PAUSE_NANOS = "achievedPauseNanos";
+	
 	private static final int DEFAULT_PAUSE_DURATION = 500;
 	
+	/** Default time before the end of the pause from which on the thread no longer sleeps. */
+	private static final long DEFAULT_TOLERANCE_MICROS = 2000;
+	
+	/** Remaining time below which parking is replaced by yielding. */
+	private static final long YIELD_THRESHOLD_NANOS = 100000;
+	
+	protected static LongProperty requestedPauseProperty = new LongProperty(PROPERTY_REQUESTED_PAUSE);
+	protected static LongProperty achievedPauseNanosProperty = new LongProperty(PROPERTY_ACHIEVED_PAUSE_NANOS);
+	
     /** Default pause duration between two tasks. */
     private long defaultInterElementPauseDuration = DEFAULT_PAUSE_DURATION;
     
@@ -41,6 +73,16 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
     /** PhaseRunnable that stops the execution thread. */
     private ExecutionPauser pauser;
     
+    /** Whether the pause should end as close to the requested duration as possible. */
+    private boolean precisePause = false;
+    
+    /** Time before the end of the pause from which on the pause is no longer slept in precise mode. */
+    private long toleranceMicros = DEFAULT_TOLERANCE_MICROS;
+    
+    /** Requested and achieved duration of the last pause, -1 if there was no pause. */
+    private long lastRequestedPause = -1;
+    private long lastAchievedPauseNanos = -1;
+    
 	public DefaultExecutionPauseHandler() {
 		super("executor-pause-handler");
 		pauser = new ExecutionPauser();
@@ -58,7 +100,7 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
     		resetPauseDuration();
     		break;
     	case POST_PROCESS:
-    		//postProcess(event);
+    		postProcess(event);
     		break;
     	default:
     		// do nothing
@@ -73,6 +115,21 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
     	execManager.addPhaseExecutable(pauser, ExecutionPhase.POST_EXECUTABLE_EXECUTION, true);
     }
     
+    /** Stores the last pause in the trial of the element executed after it. */
+    private void postProcess(ExecutionContext context) {
+    	if (lastRequestedPause < 0) {
+    		return;
+    	}
+    	List<Trial> trials = context.getExecutionData().getTrials();
+    	if (trials != null && trials.size() > 0) {
+    		Trial firstTrial = trials.get(0);
+    		requestedPauseProperty.setValue(firstTrial, this, lastRequestedPause);
+    		achievedPauseNanosProperty.setValue(firstTrial, this, lastAchievedPauseNanos);
+    	}
+    	lastRequestedPause = -1;
+    	lastAchievedPauseNanos = -1;
+    }
+    
     private void unregisterPauser(ExecutionContext context) {
     	PhaseRunnableManager execManager = context.getExecutor().getPhaseRunnableManager();
     	execManager.removePhaseExecutable(pauser, ExecutionPhase.PRE_EXECUTABLE_EXECUTION);
@@ -102,6 +159,72 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
     	currentInterElementPauseDuration = defaultInterElementPauseDuration;
     }
     
+    public boolean isPrecisePause() {
+    	return precisePause;
+    }
+    
+    /** Set whether the pause should end as close to the requested duration as possible. */
+    public void setPrecisePause(boolean precisePause) {
+    	this.precisePause = precisePause;
+    }
+    
+    public long getToleranceMicros() {
+    	return toleranceMicros;
+    }
+    
+    /**
+     * Set the time before the end of a precise pause from which on the thread no longer sleeps,
+     * in microseconds. This should be larger than the sleep overshoot of the operating system.
+     */
+    public void setToleranceMicros(long toleranceMicros) {
+    	this.toleranceMicros = toleranceMicros;
+    }
+    
+    /** Returns the requested duration of the last pause in milliseconds, -1 if it has already been stored. */
+    public long getLastRequestedPause() {
+    	return lastRequestedPause;
+    }
+    
+    /** Returns the achieved duration of the last pause in nanoseconds, -1 if it has already been stored. */
+    public long getLastAchievedPauseNanos() {
+    	return lastAchievedPauseNanos;
+    }
+    
+    /**
+     * Waits until the target time has been reached.
+     * 
+     * @return false if the thread has been interrupted
+     */
+    private boolean waitUntil(long targetNanos) {
+    	long toleranceNanos = precisePause ? TimeUnit.MICROSECONDS.toNanos(toleranceMicros) : 0;
+    	try {
+    		long remaining = targetNanos - System.nanoTime();
+    		// sleep most of the time
+    		while (remaining > toleranceNanos) {
+    			TimeUnit.NANOSECONDS.sleep(remaining - toleranceNanos);
+    			remaining = targetNanos - System.nanoTime();
+    			if (!precisePause) {
+    				return true;
+    			}
+    		}
+    		// then park in decreasing steps, yield for the last few microseconds
+    		while (remaining > 0) {
+    			if (remaining > YIELD_THRESHOLD_NANOS) {
+    				LockSupport.parkNanos(remaining / 2);
+    			} else {
+    				Thread.yield();
+    			}
+    			if (Thread.interrupted()) {
+    				return false;
+    			}
+    			remaining = targetNanos - System.nanoTime();
+    		}
+    		return true;
+    	} catch (InterruptedException e) {
+    		return false;
+    	}
+    }
+    
     /**
      * PhaseRunnable that stops the execution thread for a predefined duration
      */
@@ -120,11 +243,12 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
 				// before the element execution, pause the time we previously stored
 				if (duration <= 0) return;
 				thread = Thread.currentThread();
-				try {
-		            Thread.sleep(duration);
-		        } catch (InterruptedException ie) {
-		        	// ok, just return
-		        }
+				long start = System.nanoTime();
+				prefetch(context);
+				// ok to just return if interrupted
+				waitUntil(start + TimeUnit.MILLISECONDS.toNanos(duration));
+				lastRequestedPause = duration;
+				lastAchievedPauseNanos = System.nanoTime() - start;
 		        thread = null;
 		        break;
 			case POST_EXECUTABLE_EXECUTION:
@@ -136,6 +260,19 @@ public class DefaultExecutionPauseHandler extends NodeImpl implements ExecutionP
 			}
 		}
 
+		/** Lets the upcoming executable prepare its execution. */
+		private void prefetch(ExecutionContext context) {
+			Executable executable = context.getActiveExecutable();
+			if (executable instanceof Prefetchable) {
+				try {
+					((Prefetchable) executable).prefetch(context);
+				} catch (RuntimeException e) {
+					// the executable will have to do the work itself
+					logger.error(e.getMessage(), e);
+				}
+			}
+		}
+
 		public void stop() {
 			// wake the thread up if possible
 			try {
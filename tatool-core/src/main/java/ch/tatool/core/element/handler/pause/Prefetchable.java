@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element.handler.pause;
+
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Executables implementing this interface get the chance to prepare their next execution
+ * while the DefaultExecutionPauseHandler pauses before it, e.g. to read stimuli or to load images.
+ *
+ * prefetch is called on the execution thread, not on the AWT thread, and the time spent in it
+ * counts towards the pause. It is only called if there is a pause before the execution, so
+ * executables have to be able to execute without prior prefetching.
+ */
+public interface Prefetchable {
+
+	/** Prepare the upcoming execution. */
+	public void prefetch(ExecutionContext context);
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.tatool.core.data.BatchingDataContainer;
 import ch.tatool.core.data.IntegerProperty;
 import ch.tatool.core.data.Level;
 import ch.tatool.core.data.Misc;
@@ -54,6 +55,14 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
 	public int startMinPoints = 0;
 	public int startMaxPoints = 0;
 	public int startPoints = 0;
+	
+	/**
+	 * Write buffers for the module and session data.
+	 * They are flushed at the end of each phase that writes data, so the repeated writes
+	 * of a phase are coalesced. Level changes are written to the module immediately.
+	 */
+	private BatchingDataContainer moduleData;
+	private BatchingDataContainer sessionData;
     
     public AbstractPointsAndLevelHandler() {
     	super();
@@ -76,36 +85,104 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
      * @param context
      */
     public void processExecutionPhase(ExecutionContext context) {
-    	switch (context.getPhase()) {
-    	case SESSION_START:
-    		sessionStart(context);
-    		initializeHandler(context);
-    		break;
-    	case PRE_PROCESS:
-    		preProcess(context);
-    		break;
-    	case POST_PROCESS:
-    		postProcess(context);
-    		break;
-    	case SESSION_FINISH:
-    		sessionFinish(context);
-    		break;
-    	default:
-    		// do nothing
+    	boolean failed = true;
+    	try {
+	    	switch (context.getPhase()) {
+	    	case SESSION_START:
+	    		sessionStart(context);
+	    		initializeHandler(context);
+	    		break;
+	    	case PRE_PROCESS:
+	    		preProcess(context);
+	    		break;
+	    	case POST_PROCESS:
+	    		postProcess(context);
+	    		break;
+	    	case SESSION_FINISH:
+	    		sessionFinish(context);
+	    		break;
+	    	default:
+	    		// do nothing
+	    	}
+	    	failed = false;
+    	} finally {
+    		// write the data of the phase, or discard it if the phase failed half way
+	    	switch (context.getPhase()) {
+	    	case SESSION_START:
+	    	case POST_PROCESS:
+	    	case SESSION_FINISH:
+	    		if (failed) {
+	    			rollbackData();
+	    		} else {
+	    			flushData();
+	    		}
+	    		break;
+	    	default:
+	    		// nothing written
+	    	}
+    	}
+    }
+    
+    /**
+     * Get the write buffer for the module data.
+     * Values written to it are stored in the module at the end of the current phase.
+     * Other readers of the module only see them then, unless flushData is called.
+     */
+    protected BatchingDataContainer getModuleData(ExecutionContext context) {
+    	Module module = context.getExecutionData().getModule();
+    	if (moduleData == null || moduleData.getTarget() != module) {
+    		flushData(moduleData);
+    		moduleData = new BatchingDataContainer(module);
+    	}
+    	return moduleData;
+    }
+    
+    /**
+     * Get the write buffer for the session data.
+     * Values written to it are stored in the session at the end of the current phase.
+     */
+    protected BatchingDataContainer getSessionData(ExecutionContext context) {
+    	ModuleSession session = context.getExecutionData().getModuleSession();
+    	if (sessionData == null || sessionData.getTarget() != session) {
+    		flushData(sessionData);
+    		sessionData = new BatchingDataContainer(session);
+    	}
+    	return sessionData;
+    }
+    
+    /** Writes the buffered module and session data. */
+    protected void flushData() {
+    	flushData(moduleData);
+    	flushData(sessionData);
+    }
+    
+    /** Discards the buffered module and session data. */
+    protected void rollbackData() {
+    	if (moduleData != null) {
+    		moduleData.rollback();
+    	}
+    	if (sessionData != null) {
+    		sessionData.rollback();
+    	}
+    }
+    
+    private static void flushData(BatchingDataContainer data) {
+    	if (data != null) {
+    		data.flush();
     	}
     }
 
 	private void sessionStart(ExecutionContext context) {
     	
 		// init handler values before first session
-    	Module module = context.getExecutionData().getModule();
+    	BatchingDataContainer module = getModuleData(context);
 
     	// read the last level state from the module
     	Integer level = Level.getLevelProperty().ensureValue(module, this);
     	Level.getLevelProperty().setValue(this, level);
     	
     	// initialize the total points of the session to zero
-    	ModuleSession session = context.getExecutionData().getModuleSession();
+    	BatchingDataContainer session = getSessionData(context);
     	Points.getTotalMinPointsProperty().setValue(session, this, 0);
     	Points.getTotalPointsProperty().setValue(session, this, 0);
     	Points.getTotalMaxPointsProperty().setValue(session, this, 0);
@@ -116,7 +193,7 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
     	Points.getTotalMaxPointsProperty().ensureValue(module, this);
     	
     	// register the handler if not yet done so.
-    	PointsAndLevelUtils.registerPointAndLevelHandler(module, this);
+    	PointsAndLevelUtils.registerPointAndLevelHandler(context.getExecutionData().getModule(), this);
     }
     
     private void preProcess(ExecutionContext context) {
@@ -193,7 +270,7 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
     	}
     	
     	// update the session data with the current execution totals
-    	ModuleSession session = context.getExecutionData().getModuleSession();
+    	BatchingDataContainer session = getSessionData(context);
     	IntegerProperty totalMinPointsProperty = Points.getTotalMinPointsProperty();
     	IntegerProperty totalPointsProperty = Points.getTotalPointsProperty();
     	IntegerProperty totalMaxPointsProperty = Points.getTotalMaxPointsProperty();
@@ -246,8 +323,10 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
         	Level.getLevelProperty().setValue(this, newLevel);
         	Level.getLevelChangeDeltaProperty().setValue(this, null);
         	
-        	 // update the level value in the module
-        	Level.getLevelProperty().setValue(context.getExecutionData().getModule(), this);
+        	 // update the level value in the module, immediately so that other handlers see it
+        	BatchingDataContainer module = getModuleData(context);
+        	Level.getLevelProperty().setValue(module, this);
+        	module.flush();
         } 
     }
     
@@ -271,11 +350,11 @@ public abstract class AbstractPointsAndLevelHandler extends NodeImpl implements
     	IntegerProperty totalMaxPointsProperty = Points.getTotalMaxPointsProperty();
     	
     	// Set the current level onto the session
-    	ModuleSession session = context.getExecutionData().getModuleSession();
+    	BatchingDataContainer session = getSessionData(context);
     	Level.getLevelProperty().setValue(session, this);
     	
     	// roll up the  the total points to zero
-    	Module module = context.getExecutionData().getModule();
+    	BatchingDataContainer module = getModuleData(context);
     	
     	// load current module totals
     	int minModule = totalMinPointsProperty.getValue(module, this, ZERO_POINTS);
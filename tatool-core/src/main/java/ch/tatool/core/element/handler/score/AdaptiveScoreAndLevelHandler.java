@@ -21,14 +21,13 @@ package ch.tatool.core.element.handler.score;
 import java.util.ArrayList;
 import java.util.List;
 
+import ch.tatool.core.data.BatchingDataContainer;
 import ch.tatool.core.data.DoubleProperty;
 import ch.tatool.core.data.IntegerProperty;
 import ch.tatool.core.data.Misc;
-import ch.tatool.core.data.Points;
 import ch.tatool.core.element.CompoundElement;
 import ch.tatool.core.element.CompoundSelector;
 import ch.tatool.core.element.handler.timeout.DefaultAdaptiveTimeoutHandler;
-import ch.tatool.data.Module;
 import ch.tatool.data.Trial;
 import ch.tatool.element.Executable;
 import ch.tatool.element.Node;
@@ -109,8 +108,12 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 	public static final int REDUCE = -1;
 	public static final int ADAPT = 0;
 
-	private double totalScore = 0;
-	private double maxScore = 0;
+	/** Running sums over the trials since the last benchmark reset. */
+	private TrialWindowStatistics statistics = new TrialWindowStatistics(0);
+
+	/** Points collected in previous sessions since the last benchmark reset. */
+	private double previousTotalScore = 0;
+	private double previousMaxScore = 0;
 
 	private List<DefaultAdaptiveTimeoutHandler> timeoutHandlers = new ArrayList<DefaultAdaptiveTimeoutHandler>();
 
@@ -122,21 +125,22 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 	 * Initializes the algorithm with the values of the DB at session start
 	 */
 	protected void initializeHandler(ExecutionContext context) {
-		Module module = context.getExecutionData().getModule();
-		benchmarkTotalPoints = benchmarkTotalPointsProperty.getValue(module, this, 0.0);
-		benchmarkMaxPoints = benchmarkMaxPointsProperty.getValue(module, this, 0.0);
+		BatchingDataContainer moduleData = getModuleData(context);
+		benchmarkTotalPoints = benchmarkTotalPointsProperty.getValue(moduleData, this, 0.0);
+		benchmarkMaxPoints = benchmarkMaxPointsProperty.getValue(moduleData, this, 0.0);
 		
-		totalScore = benchmarkTotalPoints;
-		maxScore = benchmarkMaxPoints;
+		statistics.clear();
+		previousTotalScore = benchmarkTotalPoints;
+		previousMaxScore = benchmarkMaxPoints;
 	}
 	
 	/**
 	 * Initializes the algorithm with the values of the DB.
 	 */
 	public void initializeAlgorithm(ExecutionContext event) {
-		Module module = event.getExecutionData().getModule();
-		counter = counterProperty.getValue(module, this, 0);
-		benchmark = benchmarkProperty.getValue(module, this, 0.0);
+		BatchingDataContainer moduleData = getModuleData(event);
+		counter = counterProperty.getValue(moduleData, this, 0);
+		benchmark = benchmarkProperty.getValue(moduleData, this, 0.0);
 
 		if (benchmark > 0) {
 			doBenchmark = false; // we already have a benchmark
@@ -157,8 +161,7 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 		for (int i = 0; i < trials.size(); i++) {
 			Trial trial = trials.get(i);
 
-			totalScore += Points.getPointsProperty().getValue(trial, trial.getParentId(), 0);
-			maxScore += Points.getMaxPointsProperty().getValue(trial, trial.getParentId(), 0);
+			statistics.add(trial);
 
 			if (trials.isEmpty()) return currentLevel;
 
@@ -181,7 +184,7 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 				if (counter == benchmarkSampleSize) {
 					// do benchmark
 					if (doBenchmark) {
-						double performance = (totalScore / maxScore)
+						double performance = (getTotalScore() / getMaxScore())
 								+ benchmarkRaise;
 	
 						if (performance >= minBenchmark) {
@@ -195,7 +198,7 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 
 						// compare benchmark
 					} else {
-						double performance = totalScore / maxScore;
+						double performance = getTotalScore() / getMaxScore();
 
 						if (performance >= benchmark) {
 							newLevel = changeLevel(context, oldLevel, 1);
@@ -210,31 +213,55 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 				}
 
 				// save the counter to the DB
-				counterProperty.setValue(
-						context.getExecutionData().getModule(), this, counter);
+				counterProperty.setValue(getModuleData(context), this, counter);
 
 			}
-			// save the current points to the DB
-			benchmarkTotalPointsProperty.setValue(context.getExecutionData().getModule(), this, totalScore);
-			benchmarkMaxPointsProperty.setValue(context.getExecutionData().getModule(), this, maxScore);
+		}
+
+		// save the current points to the DB
+		if (!trials.isEmpty()) {
+			BatchingDataContainer moduleData = getModuleData(context);
+			benchmarkTotalPointsProperty.setValue(moduleData, this, getTotalScore());
+			benchmarkMaxPointsProperty.setValue(moduleData, this, getMaxScore());
 		}
 
 		return newLevel;
 	}
 
+	/** Points collected since the last benchmark reset. */
+	private double getTotalScore() {
+		return previousTotalScore + statistics.getPointsSum();
+	}
+
+	/** Max points collected since the last benchmark reset. */
+	private double getMaxScore() {
+		return previousMaxScore + statistics.getMaxPointsSum();
+	}
+
+	/** Starts collecting points for a new benchmark. */
+	private void resetScores() {
+		statistics.clear();
+		previousTotalScore = 0;
+		previousMaxScore = 0;
+	}
+
+	/** Get the statistics of the trials since the last benchmark reset. */
+	public TrialWindowStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * Sets a new individual benchmark according to the performance.
 	 */
 	private void setBenchmark(ExecutionContext context) {
 		// set a new benchmark
-		benchmark = (totalScore / maxScore) + benchmarkRaise;
+		benchmark = (getTotalScore() / getMaxScore()) + benchmarkRaise;
 
 		// make sure the benchmark isn't bigger than maxBenchmark
 		if (benchmark > maxBenchmark) {
 			benchmark = maxBenchmark;
 		}
-		benchmarkProperty.setValue(context.getExecutionData().getModule(),
-				this, benchmark);
+		benchmarkProperty.setValue(getModuleData(context), this, benchmark);
 		doBenchmark = false; // don't make another benchmark
 		adaptTimer(context, ADAPT);
 
@@ -242,8 +269,7 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 		counter = 0;
 		retryTimer = 0;
 		retryBenchmark = 0;
-		totalScore = 0;
-		maxScore = 0;
+		resetScores();
 	}
 
 	/**
@@ -267,15 +293,13 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 			benchmark = 0;
 			doBenchmark = true;
 			retryBenchmark = 0;
-			benchmarkProperty.setValue(context.getExecutionData().getModule(),
-					this, 0.0);
+			benchmarkProperty.setValue(getModuleData(context), this, 0.0);
 			retryReset = true;
 		}
 
 		// reset algorithm parameters
 		counter = 0;
-		totalScore = 0;
-		maxScore = 0;
+		resetScores();
 
 		return retryReset;
 	}
@@ -292,14 +316,13 @@ public class AdaptiveScoreAndLevelHandler extends AbstractPointsAndLevelHandler
 		newLevel = oldLevel + addition;
 
 		// reset algorithm parameters
-		benchmarkProperty.setValue(event.getExecutionData().getModule(), this, 0.0);
+		benchmarkProperty.setValue(getModuleData(event), this, 0.0);
 		benchmark = 0;
 		counter = 0;
 		retryTimer = 0;
 		retryBenchmark = 0;
 		doBenchmark = true;
-		totalScore = 0;
-		maxScore = 0;
+		resetScores();
 
 		// reset the timer
 		adaptTimer(event, RESET);
@@ -24,11 +24,9 @@ import java.util.List;
 import ch.tatool.core.data.DoubleProperty;
 import ch.tatool.core.data.IntegerProperty;
 import ch.tatool.core.data.Misc;
-import ch.tatool.core.data.Points;
 import ch.tatool.core.element.CompoundElement;
 import ch.tatool.core.element.CompoundSelector;
 import ch.tatool.core.element.handler.score.AbstractPointsAndLevelHandler;
-import ch.tatool.data.Module;
 import ch.tatool.data.Trial;
 import ch.tatool.element.Executable;
 import ch.tatool.element.Node;
@@ -66,8 +64,8 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 	private static DoubleProperty performanceProperty = new DoubleProperty(
 			PROPERTY_LEVEL_PERFORMANCE);
 
-	private double totalScore = 0;
-	private double maxScore = 0;
+	/** Running sums over the trials of the current sample. */
+	private TrialWindowStatistics statistics = new TrialWindowStatistics(0);
 	private int trialCounter;
 
 	// statistics data
@@ -82,8 +80,7 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 	 * Initializes the algorithm with the values of the DB at session start
 	 */
 	protected void initializeHandler(ExecutionContext context) {
-		totalScore = 0;
-		maxScore = 0;
+		statistics.clear();
 
 		// session data
 		performanceData = new HashMap<Integer, Integer>();
@@ -95,10 +92,8 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 	 * Initializes the algorithm with the values of the DB.
 	 */
 	public void initializeAlgorithm(ExecutionContext event) {
-		Module module = event.getExecutionData().getModule();
-
 		// get the counters from the module
-		trialCounter = trialCounterProperty.getValue(module, this, 0);
+		trialCounter = trialCounterProperty.getValue(getModuleData(event), this, 0);
 	}
 
 	@Override
@@ -113,8 +108,7 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 		for (int i = 0; i < trials.size(); i++) {
 			Trial trial = trials.get(i);
 
-			totalScore += Points.getPointsProperty().getValue(trial, trial.getParentId(), 0);
-			maxScore += Points.getMaxPointsProperty().getValue(trial, trial.getParentId(), 0);
+			statistics.add(trial);
 
 			if (trials.isEmpty()) return currentLevel;
 
@@ -128,7 +122,7 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 				initializeAlgorithm(context);
 
 				if (trialCounter >= (sampleSize - 1)) {
-					performance = (totalScore / maxScore) * 100;
+					performance = (statistics.getPointsSum() / statistics.getMaxPointsSum()) * 100;
 					// level up counter
 					if (performance >= maxThreshold) {
 						newLevel = changeLevel(context, oldLevel, 1);
@@ -143,20 +137,16 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
 					performanceData.put(trialCounter, (int) performance);
 					levelData.put(trialCounter, newLevel);
 
-					totalScore = 0;
-					maxScore = 0;
+					statistics.clear();
 					performance = 0;
 					trialCounter = 0;
 					trialCounterProperty.setValue(trial, this, trialCounter);
-					trialCounterProperty.setValue(context.getExecutionData()
-							.getModule(), this, trialCounter);
 				} else {
 					trialCounter++;
 				}
 
 				trialCounterProperty.setValue(trial, this, trialCounter);
-				trialCounterProperty.setValue(context.getExecutionData()
-						.getModule(), this, trialCounter);
+				trialCounterProperty.setValue(getModuleData(context), this, trialCounter);
 
 			}
 		}
@@ -215,6 +205,11 @@ public class CustomPointsAndLevelHandler extends AbstractPointsAndLevelHandler {
         return isDone;
     }
 
+	/** Get the statistics of the trials of the current sample. */
+	public TrialWindowStatistics getStatistics() {
+		return statistics;
+	}
+
 	public HashMap<Integer, Integer> getPerformanceData() {
 		return performanceData;
 	}
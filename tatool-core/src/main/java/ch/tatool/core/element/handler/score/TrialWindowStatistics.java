@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element.handler.score;
+
+import ch.tatool.core.data.Points;
+import ch.tatool.core.data.Result;
+import ch.tatool.core.data.Timing;
+import ch.tatool.data.Trial;
+
+/**
+ * Statistics over a window of the most recent trials.
+ *
+ * Points, max points, correctness and duration of each trial are kept in primitive ring
+ * buffers. Sums and sums of squares are updated whenever a trial enters or leaves the window,
+ * so that all statistics are available in constant time without going back to the trials.
+ *
+ * With a capacity of 0 the window is not limited and only the running sums are kept, so the
+ * memory used does not grow with the number of trials. All trials count until clear is called.
+ * This is what handlers need that evaluate blocks of trials and start over afterwards.
+ *
+ * This class is not thread-safe.
+ */
+public class TrialWindowStatistics {
+
+	/** Maximum number of trials in the window, 0 for no limit. */
+	private int capacity;
+
+	/** Ring buffers, null for unlimited windows. */
+	private double[] points;
+	private double[] maxPoints;
+	private boolean[] correct;
+	private long[] durations;
+
+	/** Index of the oldest trial. */
+	private int head;
+
+	/** Number of trials in the window. */
+	private int count;
+
+	private double pointsSum;
+	private double pointsSquareSum;
+	private double maxPointsSum;
+	private int correctCount;
+	private double durationSum;
+	private double durationSquareSum;
+
+	/**
+	 * Create a new window.
+	 *
+	 * @param capacity the number of trials to keep, 0 to count all trials
+	 */
+	public TrialWindowStatistics(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		if (capacity > 0) {
+			points = new double[capacity];
+			maxPoints = new double[capacity];
+			correct = new boolean[capacity];
+			durations = new long[capacity];
+		}
+	}
+
+	/**
+	 * Add a trial to the window, reading the points, max points, result and duration
+	 * stored for the trial's parent element.
+	 */
+	public void add(Trial trial) {
+		String nodeId = trial.getParentId();
+		add(Points.getPointsProperty().getValue(trial, nodeId, 0),
+				Points.getMaxPointsProperty().getValue(trial, nodeId, 0),
+				Result.ResultProperty.SUCCESS_RESULT.equals(Result.getResultProperty().getValue(trial, nodeId)),
+				Timing.getDurationTimeProperty().getValue(trial, nodeId, 0L));
+	}
+
+	/** Add a trial to the window, dropping the oldest one if the window is full. */
+	public void add(double trialPoints, double trialMaxPoints, boolean trialCorrect, long duration) {
+		if (capacity > 0) {
+			if (count == capacity) {
+				removeOldest();
+			}
+			int index = (head + count) % capacity;
+			points[index] = trialPoints;
+			maxPoints[index] = trialMaxPoints;
+			correct[index] = trialCorrect;
+			durations[index] = duration;
+		}
+		count++;
+
+		pointsSum += trialPoints;
+		pointsSquareSum += trialPoints * trialPoints;
+		maxPointsSum += trialMaxPoints;
+		if (trialCorrect) {
+			correctCount++;
+		}
+		durationSum += duration;
+		durationSquareSum += (double) duration * duration;
+	}
+
+	private void removeOldest() {
+		double oldPoints = points[head];
+		pointsSum -= oldPoints;
+		pointsSquareSum -= oldPoints * oldPoints;
+		maxPointsSum -= maxPoints[head];
+		if (correct[head]) {
+			correctCount--;
+		}
+		long oldDuration = durations[head];
+		durationSum -= oldDuration;
+		durationSquareSum -= (double) oldDuration * oldDuration;
+		head = (head + 1) % capacity;
+		count--;
+	}
+
+	/** Removes all trials from the window. */
+	public void clear() {
+		head = 0;
+		count = 0;
+		pointsSum = 0;
+		pointsSquareSum = 0;
+		maxPointsSum = 0;
+		correctCount = 0;
+		durationSum = 0;
+		durationSquareSum = 0;
+	}
+
+	/** Returns the maximum number of trials in the window, 0 if not limited. */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/** Returns the number of trials in the window. */
+	public int getCount() {
+		return count;
+	}
+
+	/** Returns whether the window contains capacity trials. Always false for unlimited windows. */
+	public boolean isFull() {
+		return capacity > 0 && count == capacity;
+	}
+
+	public double getPointsSum() {
+		return pointsSum;
+	}
+
+	public double getMaxPointsSum() {
+		return maxPointsSum;
+	}
+
+	/** Returns the mean points per trial, 0 if the window is empty. */
+	public double getPointsMean() {
+		return count > 0 ? pointsSum / count : 0;
+	}
+
+	/** Returns the (population) variance of the points, 0 if the window is empty. */
+	public double getPointsVariance() {
+		return variance(pointsSum, pointsSquareSum);
+	}
+
+	/** Returns the ratio of points to max points, 0 if no max points are available. */
+	public double getPerformance() {
+		return maxPointsSum != 0 ? pointsSum / maxPointsSum : 0;
+	}
+
+	/** Returns the number of correct trials in the window. */
+	public int getCorrectCount() {
+		return correctCount;
+	}
+
+	/** Returns the proportion of correct trials, 0 if the window is empty. */
+	public double getCorrectRatio() {
+		return count > 0 ? (double) correctCount / count : 0;
+	}
+
+	/**
+	 * Returns the mean trial duration (see Timing.getDurationTimeProperty), 0 if the window is empty.
+	 * This is the time the executable ran, not the reaction time measured by a timeout handler.
+	 */
+	public double getDurationMean() {
+		return count > 0 ? durationSum / count : 0;
+	}
+
+	/** Returns the (population) variance of the trial duration, 0 if the window is empty. */
+	public double getDurationVariance() {
+		return variance(durationSum, durationSquareSum);
+	}
+
+	private double variance(double sum, double squareSum) {
+		if (count == 0) {
+			return 0;
+		}
+		double mean = sum / count;
+		// guard against small negative values caused by rounding
+		return Math.max(0, squareSum / count - mean * mean);
+	}
+}
@@ -80,12 +80,14 @@ public class UserFeedbackLevelListener extends NodeImpl implements PointsAndLeve
     		textPanel.setText(levelDownText);
     	}
     	GenericContentExecutable changeLevelExecutable = new GenericContentExecutable();
+    	sharePropertyStorage(changeLevelExecutable);
     	changeLevelExecutable.addContent(Region.CENTER, textPanel);
     	changeLevelExecutable.setDisplayDuration(duration);
     	Misc.getOutcomeProperty().setValue(changeLevelExecutable, ExecutionOutcome.SKIP);
     	TemporaryElementSupport support = TemporaryElementSupportUtil.getInstance().findTemporaryElementSupport(context);
     	if (support != null) {
     		ExecutableElement element = new ExecutableElement(changeLevelExecutable);
+    		sharePropertyStorage(element);
     		support.addTemporaryElement(element);
     	}
     	
@@ -25,6 +25,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.tatool.core.data.LongArrayProperty;
+import ch.tatool.core.data.TrialHistoryCache;
 import ch.tatool.data.Module;
 import ch.tatool.data.Trial;
 import ch.tatool.exec.ExecutionContext;
@@ -61,6 +63,23 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
 	/** Reset the duration at level-change */
 	private boolean resetTimerDuration = true;
 
+	public static final String PROPERTY_REACTION_TIME_WINDOW = "reactionTimeWindow";
+
+	protected static LongArrayProperty reactionTimeWindowProperty = new LongArrayProperty(
+			PROPERTY_REACTION_TIME_WINDOW);
+
+	/**
+	 * Keep the reaction times of the last trials in memory instead of loading the
+	 * trials each time the timeout gets adapted.
+	 */
+	private boolean incrementalPercentile = false;
+
+	/** Reaction times of the previous trials, only used in incremental mode. */
+	private ReactionTimeWindow reactionTimeWindow;
+
+	/** Reaction time of the current trial, added to the window once the trial is done. */
+	private long pendingReactionTime = -1;
+
 	public DefaultAdaptiveTimeoutHandler() {
 		super();
 	}
@@ -71,6 +90,18 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
     	case SESSION_START:
     		initialize(context);
     		break;
+    	case PRE_PROCESS:
+    		commitReactionTime();
+    		break;
+    	case POST_PROCESS:
+    		recordReactionTime(context);
+    		break;
+    	case SESSION_FINISH:
+    		commitReactionTime();
+    		storeReactionTimeWindow(context);
+    		break;
+    	default:
+    		// do nothing
     	}
     }
 
@@ -82,6 +113,70 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
 		long timeoutDuration = getDefaultTimerDuration();
 		timeoutDuration = durationProperty.getValue(module, this, timeoutDuration);
 		setDefaultTimerDuration(timeoutDuration);
+		
+		if (incrementalPercentile) {
+			loadReactionTimeWindow(event);
+		} else {
+			reactionTimeWindow = null;
+		}
+	}
+	
+	/**
+	 * Loads the reaction time window from the module. If the module does not contain
+	 * a window yet, it is filled once with the reaction times of the last trials.
+	 */
+	private void loadReactionTimeWindow(ExecutionContext event) {
+		Module module = event.getExecutionData().getModule();
+		reactionTimeWindow = new ReactionTimeWindow(Math.max(0, timerSampleSize - 1));
+		pendingReactionTime = -1;
+		long[] values = reactionTimeWindowProperty.getValue(module, this);
+		if (values != null) {
+			reactionTimeWindow.setValues(values);
+			return;
+		}
+		
+		List<Trial> trials = TrialHistoryCache.getTrials(event, getParent(), timerSampleSize);
+		for (Trial t : trials) {
+			Long duration = durationProperty.getValue(t, this);
+			if (duration != null) {
+				Long reactionTime = reactionTimeProperty.getValue(t, this);
+				if (reactionTime == null || reactionTime <= 0) {
+					reactionTime = duration;
+				}
+				reactionTimeWindow.add(reactionTime);
+			}
+		}
+	}
+	
+	/** Remembers the reaction time of the trial that has just been finished. */
+	private void recordReactionTime(ExecutionContext context) {
+		if (reactionTimeWindow == null || getParent() != context.getActiveExecutable()) {
+			return;
+		}
+		long reactionTime = getReactionTime();
+		if (reactionTime <= 0) {
+			reactionTime = getDefaultTimerDuration();
+		}
+		pendingReactionTime = reactionTime;
+	}
+	
+	/**
+	 * Adds the reaction time of the last trial to the window. This happens only after
+	 * the trial has been fully processed, as adaptTimeoutDuration takes the reaction time
+	 * of the current trial into account separately.
+	 */
+	private void commitReactionTime() {
+		if (reactionTimeWindow != null && pendingReactionTime >= 0) {
+			reactionTimeWindow.add(pendingReactionTime);
+			pendingReactionTime = -1;
+		}
+	}
+	
+	private void storeReactionTimeWindow(ExecutionContext context) {
+		if (reactionTimeWindow != null) {
+			reactionTimeWindowProperty.setValue(context.getExecutionData().getModule(),
+					this, reactionTimeWindow.toArray());
+		}
 	}
 
 	/**
@@ -107,10 +202,12 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
 	 * @return the 3rd quartile of the n last trials reaction times
 	 */
 	public long getSamplesDuration(ExecutionContext event) {
+		if (reactionTimeWindow != null) {
+			return getWindowDuration();
+		}
 
 		// find the trials that contain data about this handler
-		List<Trial> trials = event.getDataService().getTrials(event.getExecutionData().getModule(), null,
-				getParent(), timerSampleSize);
+		List<Trial> trials = TrialHistoryCache.getTrials(event, getParent(), timerSampleSize);
 
 		// find the n-percentile reaction time - use the current duration by
 		// default
@@ -165,6 +262,18 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
 		return newDuration;
 	}
 
+	/**
+	 * Calculates the percentile using the reaction time window and the current
+	 * reaction time, without accessing the trials.
+	 */
+	private long getWindowDuration() {
+		long reactionTime = getReactionTime();
+		if (reactionTime <= 0) {
+			reactionTime = getDefaultTimerDuration();
+		}
+		return (long) reactionTimeWindow.getInterpolatedValue(percentile, reactionTime);
+	}
+
 	/**
 	 * Sets the duration of the timer to maxDuration
 	 */
@@ -306,6 +415,18 @@ public class DefaultAdaptiveTimeoutHandler extends DefaultVisualTimeoutHandler
 		this.maxTimerDuration = maxTimerDuration;
 	}
 
+	public boolean isIncrementalPercentile() {
+		return incrementalPercentile;
+	}
+
+	/**
+	 * Set whether the reaction times of the last trials should be kept in memory and
+	 * stored in the module, instead of loading the trials for each adaptation.
+	 */
+	public void setIncrementalPercentile(boolean incrementalPercentile) {
+		this.incrementalPercentile = incrementalPercentile;
+	}
+
 	public boolean isResetTimerDuration() {
 		return resetTimerDuration;
 	}
@@ -19,13 +19,19 @@
 package ch.tatool.core.element.handler.timeout;
 
 import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.swing.SwingUtilities;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ch.tatool.core.data.LongProperty;
+import ch.tatool.core.display.swing.TimingService;
 import ch.tatool.core.element.NodeImpl;
+import ch.tatool.core.element.TimerService;
+import ch.tatool.core.executable.AsyncExecutable;
+import ch.tatool.core.executable.ExecutionFuture;
 import ch.tatool.data.Trial;
 import ch.tatool.exec.ExecutionContext;
 import ch.tatool.exec.ExecutionPhaseListener;
@@ -34,6 +40,12 @@ import ch.tatool.exec.ExecutionPhaseListener;
  * Aspect that provides task timeout capability.
  * This aspect only makes sense when attached to a task.
  * 
+ * The timeout is scheduled with the shared TimerService. Once it elapses, timerElapsed is
+ * called on the awt thread, so that cancelling the executable never blocks the timer thread.
+ * 
+ * If the active executable is an AsyncExecutable, the timeout is cancelled as soon as its
+ * execution finishes, without waiting for the executable to call cancelTimeout.
+ * 
  * @author Michael Ruflin
  */
 public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseListener, TimeoutHandler {
@@ -55,13 +67,22 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
     private long reactionTime = -1;
     private static long convertRateToMillis = 1000000;
 
-    /** Timer used for the timeout. */
+    /**
+     * Timer for subclasses that schedule their own tasks, created on demand by getTimer.
+     * 
+     * @deprecated the timeout is scheduled with the shared TimerService, see getTimerService
+     */
+    @Deprecated
     protected Timer timer;
     
-    private TimeoutTask timeoutTask;
+    /** Timeout task scheduled with the shared timer service. */
+    private ScheduledFuture<?> timeoutTask;
+    
+    /** Timeout task of the current timeout, null if no timeout is running. */
+    private volatile TimeoutTask currentTimeout;
     
     /** Is the timer currently running. */
-    private boolean timerRunning = false;
+    private volatile boolean timerRunning = false;
     
     private ExecutionContext context;
     
@@ -81,10 +102,22 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
         this.context = context;
         timerRunning = true;
         reactionTime = -1;
-        timeoutTask = new TimeoutTask();
-        timer = new Timer();
-        timer.schedule(timeoutTask, defaultTimerDuration);
+        final TimeoutTask task = new TimeoutTask();
+        currentTimeout = task;
+        timeoutTask = getTimerService().schedule(task, defaultTimerDuration);
         timerStartTimestamp = System.nanoTime();
+        
+        ExecutionFuture execution = AsyncExecutable.getCurrentExecution(context);
+        if (execution != null) {
+        	execution.addCompletionListener(new ExecutionFuture.CompletionListener() {
+        		public void executionCompleted(ExecutionFuture future) {
+        			// skip if the timeout got cancelled or replaced in the meantime
+        			if (currentTimeout == task) {
+        				cancelTimeout();
+        			}
+        		}
+        	});
+        }
     }
     
     /**
@@ -92,10 +125,14 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
      */
     public void cancelTimeout() {
         timerStop = System.nanoTime();
-        timer.cancel();
         timerRunning = false;
+        currentTimeout = null;
+        if (timer != null) {
+        	timer.cancel();
+        	timer = null;
+        }
         if (timeoutTask != null) {
-            timeoutTask.cancel();
+            getTimerService().cancel(timeoutTask);
           
             // calculate the reaction time and make sure it is not bigger than defaultTimerDuration
             reactionTime = (timerStop - timerStartTimestamp)/convertRateToMillis;
@@ -105,8 +142,8 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
         logger.info("Timer stopped.");
     }
 
+    /** Called on the awt thread once the timeout elapsed. */
     protected void timerElapsed() {
-    	timer.cancel();
     	if (context.getActiveExecutable() != null) {
     		context.getActiveExecutable().cancel();
     	}
@@ -133,10 +170,25 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
         	Trial firstTrial = context.getExecutionData().getCreateFirstTrial();
         	durationProperty.setValue(firstTrial, this, defaultTimerDuration);
         	reactionTimeProperty.setValue(firstTrial, this, reactionTime);
+        	TimingService.storeTimestamps(firstTrial, this);
         }
     }
     
+    protected TimerService getTimerService() {
+    	return TimerService.getDefault();
+    }
+    
+    /**
+     * Returns a timer that is cancelled together with the timeout. It is only created when
+     * requested, the timeout itself does not use it.
+     * 
+     * @deprecated schedule tasks with getTimerService instead, which does not need a thread per timer
+     */
+    @Deprecated
     protected Timer getTimer() {
+    	if (timer == null) {
+    		timer = new Timer(true);
+    	}
     	return timer;
     }
     
@@ -167,12 +219,21 @@ public class DefaultTimeoutHandler extends NodeImpl implements ExecutionPhaseLis
 
     /**
      * Timeout task.
+     * 
+     * Runs on the shared timer thread and hands the timeout over to the awt thread, as
+     * cancelling the executable may have to wait for the awt thread.
      */
-    class TimeoutTask extends TimerTask {
-        @Override
+    class TimeoutTask implements Runnable {
         public void run() {
             if (timerRunning) {
-            	timerElapsed();
+            	SwingUtilities.invokeLater(new Runnable() {
+            		public void run() {
+            			// skip if the timeout got cancelled or replaced in the meantime
+            			if (timerRunning && currentTimeout == TimeoutTask.this) {
+            				timerElapsed();
+            			}
+            		}
+            	});
             }
         }
     }
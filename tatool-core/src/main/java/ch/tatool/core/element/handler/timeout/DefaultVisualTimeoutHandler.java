@@ -20,15 +20,18 @@ package ch.tatool.core.element.handler.timeout;
 
 import java.util.List;
 import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.SwingUtilities;
 
 import ch.tatool.core.data.LongProperty;
+import ch.tatool.core.display.swing.TimingService;
 import ch.tatool.core.display.swing.status.StatusPanel;
 import ch.tatool.core.display.swing.status.StatusRegionUtil;
 import ch.tatool.core.display.swing.status.TimerStatusPanel;
 import ch.tatool.core.element.NodeImpl;
+import ch.tatool.core.element.TimerService;
 import ch.tatool.data.Trial;
 import ch.tatool.exec.ExecutionContext;
 import ch.tatool.exec.ExecutionPhaseListener;
@@ -55,13 +58,19 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 	private long timerStop = 0;
 	private long reactionTime = -1;
 
-	/** Timer used for the timeout. */
+	/**
+	 * Timer for subclasses that schedule their own tasks, created on demand by getTimer.
+	 * 
+	 * @deprecated the timeout is scheduled with the shared TimerService, see getTimerService
+	 */
+	@Deprecated
 	protected Timer timer;
 
-	private TimeoutTask timeoutTask;
+	/** Timeout task scheduled with the shared timer service. */
+	private ScheduledFuture<?> timeoutTask;
 
 	/** Is the timer currently running. */
-	private boolean timerRunning = false;
+	private volatile boolean timerRunning = false;
 
 	protected static LongProperty durationProperty = new LongProperty(
 			PROPERTY_DURATION);
@@ -72,7 +81,21 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 	private StatusPanel statusPanel;
 
 	/** Updates the ui in regular intervals. */
-	private StatusPanelUpdaterTask updaterTask;
+	private ScheduledFuture<?> updaterTask;
+
+	/** Set while a status panel update is queued on the EDT, further updates are coalesced into it. */
+	private final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+	/** Timer image index last displayed, used to skip updates that would not change the display. */
+	private volatile int displayedImageIndex = -1;
+
+	/** Status panel update executed on the EDT. */
+	private final Runnable statusPanelUpdate = new Runnable() {
+		public void run() {
+			updatePending.set(false);
+			applyStatusPanelUpdate();
+		}
+	};
 
 	public DefaultVisualTimeoutHandler() {
 		super();
@@ -94,26 +117,26 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 		// start timer task
 		timerRunning = true;
 		reactionTime = -1;
-		timeoutTask = new TimeoutTask();
-		timer = new Timer();
-		timer.schedule(timeoutTask, defaultTimerDuration);
+		displayedImageIndex = TimerStatusPanel.getImageIndex(defaultTimerDuration, 0, defaultTimerDuration);
+		timeoutTask = getTimerService().schedule(new TimeoutTask(), defaultTimerDuration);
 		timerStartTimestamp = System.nanoTime();
 
 		// start ui updater
 		if (statusPanel != null) {
-			updaterTask = new StatusPanelUpdaterTask();
-			timer.schedule(updaterTask, uiRefreshPeriod, uiRefreshPeriod);
-			
+			updaterTask = getTimerService().scheduleAtFixedRate(new StatusPanelUpdaterTask(), uiRefreshPeriod, uiRefreshPeriod);
 		}
 	}
 
 	public void cancelTimeout() {
 		// stop timer task
 		timerStop = System.nanoTime();
-		timer.cancel();
 		timerRunning = false;
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
 		if (timeoutTask != null) {
-			timeoutTask.cancel();
+			getTimerService().cancel(timeoutTask);
 
 			// calculate the reaction time and make sure it is not bigger than
 			// defaultTimerDuration
@@ -126,7 +149,7 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 
 		// stop updating task
 		if (updaterTask != null) {
-			updaterTask.cancel();
+			getTimerService().cancel(updaterTask);
 			updaterTask = null;
 		}
 	}
@@ -137,30 +160,43 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 			statusPanel.setProperty(StatusPanel.PROPERTY_VALUE, 0);
 
 			// stop updating task
-			updaterTask.cancel();
+			getTimerService().cancel(updaterTask);
 			updaterTask = null;
 		}
-		
-		// stop timer
-		timer.cancel();
 	}
 
+	/**
+	 * Called by the updater task. Queues an update of the status panel on the EDT, unless
+	 * the displayed image would not change or an update is already queued.
+	 */
 	private void updateStatusPanel() {
 		if (statusPanel != null) {
-			// calculate the remaining time and then update the status panel
-			long now = System.nanoTime() / convertRateToMillis;// System.currentTimeMillis();
-			final long remainingTime = getDefaultTimerDuration()
-					+ getTimerStartTimestamp() - now;
-			
-			final StatusPanel statPanel = statusPanel;
-			SwingUtilities.invokeLater(new Runnable() {
-				public void run() {
-					statPanel.setProperty(StatusPanel.PROPERTY_VALUE,
-							remainingTime);
-					statPanel.setEnabled(true);
-				}
-			});
+			int imageIndex = TimerStatusPanel.getImageIndex(getRemainingTime(), 0, getDefaultTimerDuration());
+			if (imageIndex == displayedImageIndex) {
+				return;
+			}
+			if (updatePending.compareAndSet(false, true)) {
+				SwingUtilities.invokeLater(statusPanelUpdate);
+			}
+		}
+	}
+
+	/** Updates the status panel with the time remaining at the moment the update is processed. */
+	private void applyStatusPanelUpdate() {
+		StatusPanel statPanel = statusPanel;
+		if (statPanel == null || !timerRunning) {
+			return;
 		}
+		long remainingTime = getRemainingTime();
+		statPanel.setProperty(StatusPanel.PROPERTY_VALUE, remainingTime);
+		statPanel.setEnabled(true);
+		displayedImageIndex = TimerStatusPanel.getImageIndex(remainingTime, 0, getDefaultTimerDuration());
+	}
+
+	/** Returns the remaining time of the running timeout in milliseconds. */
+	private long getRemainingTime() {
+		long now = System.nanoTime() / convertRateToMillis;
+		return getDefaultTimerDuration() + getTimerStartTimestamp() - now;
 	}
 
 	public void processExecutionPhase(ExecutionContext event) {
@@ -189,6 +225,7 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 				Trial firstTrial = trials.get(0);
 	        	durationProperty.setValue(firstTrial, this, defaultTimerDuration);
 	        	reactionTimeProperty.setValue(firstTrial, this, reactionTime);
+	        	TimingService.storeTimestamps(firstTrial, this);
 			}
         	
         }
@@ -196,6 +233,24 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 		statusPanel = null;
 	}
 
+	protected TimerService getTimerService() {
+		return TimerService.getDefault();
+	}
+
+	/**
+	 * Returns a timer that is cancelled together with the timeout. It is only created when
+	 * requested, the timeout itself does not use it.
+	 * 
+	 * @deprecated schedule tasks with getTimerService instead, which does not need a thread per timer
+	 */
+	@Deprecated
+	protected Timer getTimer() {
+		if (timer == null) {
+			timer = new Timer(true);
+		}
+		return timer;
+	}
+
 	protected long getTimerStartTimestamp() {
 		return timerStartTimestamp / convertRateToMillis;
 	}
@@ -212,6 +267,18 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 		return reactionTime;
 	}
 
+	public long getUiRefreshPeriod() {
+		return uiRefreshPeriod;
+	}
+
+	/**
+	 * Set the period in milliseconds in which the remaining time is checked. Updates are only
+	 * sent to the status panel if the displayed image changes, so short periods are cheap.
+	 */
+	public void setUiRefreshPeriod(long uiRefreshPeriod) {
+		this.uiRefreshPeriod = uiRefreshPeriod;
+	}
+
 	public void setReactionTime(long reactionTime) {
 		this.reactionTime = reactionTime;
 	}
@@ -219,8 +286,7 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 	/**
 	 * UI update task
 	 */
-	class StatusPanelUpdaterTask extends TimerTask {
-		@Override
+	class StatusPanelUpdaterTask implements Runnable {
 		public void run() {
 			updateStatusPanel();
 		}
@@ -229,8 +295,7 @@ public class DefaultVisualTimeoutHandler extends NodeImpl implements ExecutionPh
 	/**
 	 * Timeout task.
 	 */
-	class TimeoutTask extends TimerTask {
-		@Override
+	class TimeoutTask implements Runnable {
 		public void run() {
 			if (timerRunning) {
 				timerElapsed();
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element.handler.timeout;
+
+import java.util.Arrays;
+
+/**
+ * Bounded window of the most recent reaction times, kept sorted.
+ * 
+ * The values are stored twice in primitive arrays: in insertion order (a ring buffer, used to
+ * find the value to drop once the window is full and to persist the window) and in sorted order
+ * (used to answer percentile queries). Adding a value costs a binary search and a shift of the
+ * sorted array, percentile queries don't need any sorting.
+ * 
+ * This class is not thread-safe.
+ */
+public class ReactionTimeWindow {
+
+	/** Values in insertion order. */
+	private long[] ring;
+	
+	/** Index of the oldest value in the ring. */
+	private int head;
+	
+	/** Values in ascending order. */
+	private long[] sorted;
+	
+	/** Number of values in the window. */
+	private int size;
+
+	/**
+	 * Create a new window.
+	 * 
+	 * @param capacity the maximum number of values kept
+	 */
+	public ReactionTimeWindow(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		ring = new long[capacity];
+		sorted = new long[capacity];
+	}
+	
+	public int getCapacity() {
+		return ring.length;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/** Add a value, dropping the oldest one if the window is full. */
+	public void add(long value) {
+		if (ring.length == 0) {
+			return;
+		}
+		if (size == ring.length) {
+			// drop the oldest value
+			long oldest = ring[head];
+			int index = Arrays.binarySearch(sorted, 0, size, oldest);
+			System.arraycopy(sorted, index + 1, sorted, index, size - index - 1);
+			head = (head + 1) % ring.length;
+			size--;
+		}
+		ring[(head + size) % ring.length] = value;
+		
+		int index = Arrays.binarySearch(sorted, 0, size, value);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		System.arraycopy(sorted, index, sorted, index + 1, size - index);
+		sorted[index] = value;
+		size++;
+	}
+	
+	/** Removes all values. */
+	public void clear() {
+		head = 0;
+		size = 0;
+	}
+	
+	/** Returns the values in insertion order, oldest first. */
+	public long[] toArray() {
+		long[] values = new long[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = ring[(head + i) % ring.length];
+		}
+		return values;
+	}
+	
+	/** Replaces the content of the window with the given values, oldest first. */
+	public void setValues(long[] values) {
+		clear();
+		// only the most recent values fit into the window
+		for (int i = Math.max(0, values.length - ring.length); i < values.length; i++) {
+			add(values[i]);
+		}
+	}
+	
+	/**
+	 * Calculates the percentile of the values in the window plus an additional value
+	 * that is not added to the window.
+	 * 
+	 * The same interpolation as DefaultAdaptiveTimeoutHandler.getInterpolatedValue is used.
+	 */
+	public double getInterpolatedValue(double percentile, long additionalValue) {
+		// position the additional value would have in the sorted values
+		int position = Arrays.binarySearch(sorted, 0, size, additionalValue);
+		if (position < 0) {
+			position = -position - 1;
+		}
+		int length = size + 1;
+		if (length == 1) {
+			return additionalValue;
+		}
+		if (percentile >= 1) {
+			percentile = 0.99;
+		} else if (percentile <= 0) {
+			percentile = 0.01;
+		}
+		double index = (double) length * percentile;
+		int lowerIndex = (int) Math.floor(index);
+		int upperIndex = (int) Math.ceil(index);
+		double fraction = index - (double) lowerIndex;
+		
+		long lower = get(lowerIndex - 1, position, additionalValue);
+		long upper = get(upperIndex - 1, position, additionalValue);
+		return lower + (fraction * (upper - lower));
+	}
+	
+	/** Returns the i-th smallest value of the window merged with the additional value. */
+	private long get(int i, int position, long additionalValue) {
+		if (i < position) {
+			return sorted[i];
+		} else if (i == position) {
+			return additionalValue;
+		} else {
+			return sorted[i - 1];
+		}
+	}
+}
@@ -4,15 +4,10 @@
 package ch.tatool.core.executable;
 
 import java.awt.event.KeyEvent;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.swing.SwingUtilities;
 
@@ -24,6 +19,7 @@ import ch.tatool.core.data.Misc;
 import ch.tatool.core.data.Points;
 import ch.tatool.core.data.Question;
 import ch.tatool.core.data.Result;
+import ch.tatool.core.data.StimulusCache;
 import ch.tatool.core.data.Timing;
 import ch.tatool.core.display.swing.ExecutionDisplayUtils;
 import ch.tatool.core.display.swing.SwingExecutionDisplay;
@@ -34,6 +30,7 @@ import ch.tatool.core.display.swing.container.ContainerUtils;
 import ch.tatool.core.display.swing.container.RegionsContainer;
 import ch.tatool.core.display.swing.container.RegionsContainer.Region;
 import ch.tatool.core.display.swing.panel.HTMLPanel;
+import ch.tatool.core.element.TimerService;
 import ch.tatool.core.element.handler.timeout.DefaultVisualTimeoutHandler;
 import ch.tatool.core.executable.BlockingAWTExecutable;
 import ch.tatool.data.DescriptivePropertyHolder;
@@ -74,7 +71,8 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 
 	private long duration = 0;
 
-	private Timer execTimer;
+	/** Task finishing the execution after duration, scheduled with the shared timer service. */
+	private ScheduledFuture<?> endTimerTask;
 
 	private boolean i18nEnabled = false;
 
@@ -97,7 +95,6 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 	protected void startExecutionAWT() {
 		context = getExecutionContext();
 		currLocale = context.getExecutionData().getModule().getMessages().getLocale();
-		execTimer = new Timer();
 		regionsContainer = ContainerUtils
 				.getRegionsContainer();
 		SwingExecutionDisplay display = ExecutionDisplayUtils
@@ -105,7 +102,7 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 		ContainerUtils.showRegionsContainer(display);
 		regionsContainer.setRegionVisibility(Region.NORTH, false);
 		
-		TimerTask endTimerTask = new TimerTask() {
+		Runnable endTask = new Runnable() {
 			public void run() {
 				SwingUtilities.invokeLater(new Runnable() {
 					public void run() {
@@ -120,7 +117,7 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 		};
 
 		if (duration > 0) {
-			execTimer.schedule(endTimerTask, duration);
+			endTimerTask = TimerService.getDefault().schedule(endTask, duration);
 		}
 		
 		setupPage(0);
@@ -179,33 +176,19 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 	public abstract String replaceVariables(String html);
 
 	private String getHTMLString(String page) {
+		Locale locale = null;
 		if (i18nEnabled) {
 			page = page.substring(0, page.lastIndexOf(".")) + "_" + currLocale.getLanguage() + page.substring(page.lastIndexOf("."));
+			locale = currLocale;
 		}
 
-		InputStream is = getClass().getResourceAsStream(base + page);
-		String html = "";
-		try {
-			html = inputStreamToString(is);
-		} catch (IOException e) {
-			e.printStackTrace();
+		// pages are shared between sessions and elements through the stimulus cache
+		String html = StimulusCache.getDefault().getText(getClass(), base + page, locale, null);
+		if (html == null) {
+			html = "";
 		}
 		return html;
 	}
-	
-	private String inputStreamToString(InputStream in) throws IOException {
-		BufferedReader bufferedReader = new BufferedReader(
-				new InputStreamReader(in));
-		StringBuilder stringBuilder = new StringBuilder();
-		String line = null;
-
-		while ((line = bufferedReader.readLine()) != null) {
-			stringBuilder.append(line + "\n");
-		}
-
-		bufferedReader.close();
-		return stringBuilder.toString();
-	}
 
 	protected void cancelExecutionAWT() {
 		actionPanel.disableActionPanel();
@@ -236,6 +219,8 @@ public abstract class AbstractHTMLExecutable extends BlockingAWTExecutable imple
 	}
 
 	private void doCleanup() {
+		TimerService.getDefault().cancel(endTimerTask);
+		endTimerTask = null;
 		if (timeoutHandler != null) {
 			timeoutHandler.cancelTimeout();
 		}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.swing.SwingUtilities;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.tatool.core.element.NodeImpl;
+import ch.tatool.element.Executable;
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Asynchronous executable element implementation
+ *
+ * executeAsync starts the execution on the awt thread without waiting for it and returns an
+ * ExecutionFuture, which the executable finishes once the participant responded (or the
+ * execution got cancelled). Handlers can get the future of the active executable through
+ * getCurrentExecution and react to the completion by adding a listener instead of blocking
+ * a thread.
+ *
+ * execute, as called by the Executor, still returns only after the execution has finished,
+ * but the executor thread is not idle in the meantime: tasks passed to runDuringExecution
+ * (pre-loading, logging, preparing the next element) are run on it while the participant
+ * responds. Tasks still queued when the execution finishes are run before execute returns.
+ */
+public abstract class AsyncExecutable extends NodeImpl implements Executable {
+
+	private Logger logger = LoggerFactory.getLogger(AsyncExecutable.class);
+
+	/** Queued to wake up the executor thread once the execution has finished. */
+	private static final Runnable WAKE_UP = new Runnable() {
+		public void run() {
+		}
+	};
+
+	/** ExecutionContext provided by the Executor. */
+	private ExecutionContext executionContext;
+
+	/** Future of the current (or last) execution. */
+	private volatile ExecutionFuture currentExecution;
+
+	/** Tasks to run on the executor thread during the execution. */
+	private final BlockingQueue<Runnable> executionTasks = new LinkedBlockingQueue<Runnable>();
+
+	public AsyncExecutable() {
+		super();
+	}
+
+	public AsyncExecutable(String defaultId) {
+		super(defaultId);
+	}
+
+	public ExecutionContext getExecutionContext() {
+		return executionContext;
+	}
+
+	public void setExecutionContext(ExecutionContext executionContext) {
+		this.executionContext = executionContext;
+	}
+
+	/**
+	 * Get the future of the execution of the active executable.
+	 *
+	 * @return the future or null if the active executable is not an AsyncExecutable
+	 */
+	public static ExecutionFuture getCurrentExecution(ExecutionContext context) {
+		Executable executable = context.getActiveExecutable();
+		if (executable instanceof AsyncExecutable) {
+			return ((AsyncExecutable) executable).getCurrentExecution();
+		}
+		return null;
+	}
+
+	/** Returns the future of the current (or last) execution, null if not executed yet. */
+	public ExecutionFuture getCurrentExecution() {
+		return currentExecution;
+	}
+
+	/**
+	 * Starts the execution and returns immediately.
+	 *
+	 * startExecutionAWT is called on the awt thread, exceptions thrown by it fail the execution.
+	 */
+	public final ExecutionFuture executeAsync() {
+		final ExecutionFuture future = new ExecutionFuture();
+		currentExecution = future;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				try {
+					startExecutionAWT(future);
+				} catch (RuntimeException e) {
+					logger.error(e.getMessage(), e);
+					future.fail(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Implementation of execute.
+	 *
+	 * Starts the execution and runs the queued tasks until the execution has finished.
+	 */
+	public final void execute() {
+		ExecutionFuture future = executeAsync();
+		future.addCompletionListener(new ExecutionFuture.CompletionListener() {
+			public void executionCompleted(ExecutionFuture f) {
+				executionTasks.offer(WAKE_UP);
+			}
+		});
+
+		while (!future.isDone()) {
+			try {
+				runTask(executionTasks.take());
+			} catch (InterruptedException e) {
+				logger.warn("Execution thread interrupted", e);
+			}
+		}
+
+		// run whatever is left over
+		Runnable task;
+		while ((task = executionTasks.poll()) != null) {
+			runTask(task);
+		}
+
+		if (future.isFailed()) {
+			// the latch in get makes sure the failure is visible
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private void runTask(Runnable task) {
+		if (task == WAKE_UP) {
+			return;
+		}
+		try {
+			task.run();
+		} catch (RuntimeException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Queues a task to run on the executor thread while the participant responds.
+	 * Tasks queued outside of an execution run during the next execution.
+	 */
+	public void runDuringExecution(Runnable task) {
+		executionTasks.offer(task);
+	}
+
+	/**
+	 * To be implemented. Called on the awt thread at the start of the execution.
+	 *
+	 * Implementations set up the display and return, and call complete on the future
+	 * once the execution is finished. complete returns false if the execution has
+	 * already been finished otherwise, e.g. by a call to cancel.
+	 */
+	protected abstract void startExecutionAWT(ExecutionFuture future);
+
+	/**
+	 * Cancels the execution.
+	 *
+	 * If the execution has not been finished already, cancelExecutionAWT is called on the awt
+	 * thread and the future is cancelled after it returned. Responses arriving in between are
+	 * rejected by complete, but the execution only counts as done (and the executor continues
+	 * with the post processing) once the executable has stopped.
+	 */
+	public void cancel() {
+		final ExecutionFuture future = currentExecution;
+		if (future == null || !future.startCancel()) {
+			return;
+		}
+		Runnable cancellation = new Runnable() {
+			public void run() {
+				try {
+					cancelExecutionAWT();
+				} finally {
+					future.completeCancel();
+				}
+			}
+		};
+		if (SwingUtilities.isEventDispatchThread()) {
+			cancellation.run();
+		} else {
+			SwingUtilities.invokeLater(cancellation);
+		}
+	}
+
+	/** Called on the awt thread when the execution got cancelled. */
+	protected void cancelExecutionAWT() {
+	}
+}
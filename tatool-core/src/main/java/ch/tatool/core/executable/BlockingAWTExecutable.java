@@ -25,6 +25,7 @@ import javax.swing.SwingUtilities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.tatool.core.display.swing.TimingService;
 import ch.tatool.element.Executable;
 
 /**
@@ -35,12 +36,28 @@ import ch.tatool.element.Executable;
  * finishing can first check whether it is "the first" or simply abort its operation in
  * case it is not.
  * 
+ * Cancellations from other threads (e.g. timeouts) are posted to the awt thread without
+ * waiting, where they acquire the finish execution lock. cancelExecutionAWT is therefore
+ * always done before the execution finishes and the next element starts, and the cancelling
+ * thread is never blocked by a busy awt thread.
+ * 
+ * By default startExecutionAWT is called with invokeAndWait. With asyncDispatch enabled it is
+ * posted to the awt thread without waiting, as the executor thread blocks in execute() anyway
+ * until the execution finishes. If the caller already is the awt thread, the methods are
+ * called directly.
+ * 
  * @author Michael Ruflin
  */
 public abstract class BlockingAWTExecutable extends BlockingExecutable implements Executable {
     
     private Logger logger = LoggerFactory.getLogger(BlockingAWTExecutable.class);
     
+    /** Whether startExecutionAWT is posted to the awt thread without waiting for it. */
+    private boolean asyncDispatch = false;
+    
+    /** Incremented for each execution, so that posted cancellations only affect the execution they were meant for. */
+    private volatile int executionNumber = 0;
+    
     public BlockingAWTExecutable() {
     	super();
     }
@@ -49,15 +66,43 @@ public abstract class BlockingAWTExecutable extends BlockingExecutable implement
         super(defaultId);
     }
     
+    public boolean isAsyncDispatch() {
+    	return asyncDispatch;
+    }
+    
+    /** Set whether startExecutionAWT should be posted to the awt thread without waiting for it. */
+    public void setAsyncDispatch(boolean asyncDispatch) {
+    	this.asyncDispatch = asyncDispatch;
+    }
+    
     /**
      * Calls startExecutionAWT on the awt thread.
      */
     protected final void startExecution() {
+    	executionNumber++;
+    	if (SwingUtilities.isEventDispatchThread()) {
+    		startExecutionOnAWT();
+    		return;
+    	}
+    	if (asyncDispatch) {
+    		SwingUtilities.invokeLater(new Runnable() {
+    			public void run() {
+    				try {
+    					startExecutionOnAWT();
+    				} catch (RuntimeException e) {
+    					// nobody waits for us, release the executor thread with the failure
+    					logger.error(e.getMessage(), e);
+    					failExecution(e);
+    				}
+    			}
+    		});
+    		return;
+    	}
     	// give the task the chance to kick off animations, timers and such stuff
     	try {
             SwingUtilities.invokeAndWait(new Runnable() {
                 public void run() {
-                	startExecutionAWT();
+                	startExecutionOnAWT();
                 }
             });
         } catch (InvocationTargetException e) {
@@ -69,13 +114,45 @@ public abstract class BlockingAWTExecutable extends BlockingExecutable implement
         }
     }
     
+    private void startExecutionOnAWT() {
+    	// the stimulus displayed by startExecutionAWT is the onset for this execution
+    	TimingService.requestOnset();
+    	startExecutionAWT();
+    }
+    
     /**
      * To be implemented. Called at the start of the executable execution.
      */
     protected abstract void startExecutionAWT();
     
+    /**
+     * Cancels the task.
+     * 
+     * Called outside the awt thread, the cancellation is posted to the awt thread and this
+     * method returns immediately. The cancellation is dropped if the execution has finished
+     * and a new one started in the meantime.
+     */
+    @Override
+    public void cancel() {
+    	if (!SwingUtilities.isEventDispatchThread()) {
+    		final int cancelledExecution = executionNumber;
+    		SwingUtilities.invokeLater(new Runnable() {
+    			public void run() {
+    				if (cancelledExecution == executionNumber) {
+    					BlockingAWTExecutable.super.cancel();
+    				}
+    			}
+    		});
+    	} else {
+    		super.cancel();
+    	}
+    }
+    
     /**
      * Calls cancelExecutionAWT on the awt thread.
+     * 
+     * As cancel hands over to the awt thread, this is called on the awt thread and waiting
+     * is only needed for subclasses calling it from elsewhere.
      */
     protected final void cancelExecution() {
     	if (SwingUtilities.isEventDispatchThread()) {
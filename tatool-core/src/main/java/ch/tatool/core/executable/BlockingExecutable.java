@@ -18,6 +18,9 @@
  ******************************************************************************/
 package ch.tatool.core.executable;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,17 +38,35 @@ import ch.tatool.exec.ExecutionContext;
  * finishing can first check whether it is "the first" or simply abort its operation in
  * case it is not.
  * 
+ * The lock is granted through a compare-and-set on the execution state, and the blocked
+ * thread is parked and unparked directly, so no monitor is involved in the handoff.
+ * The time between finishExecution and the resumption of the blocked thread is measured.
+ * 
  * @author Michael Ruflin
  */
 public abstract class BlockingExecutable extends NodeImpl implements Executable {
     
     private Logger logger = LoggerFactory.getLogger(BlockingExecutable.class);
     
+    /** Execution states. */
+    private static final int IDLE = 0;
+    private static final int RUNNING = 1;
+    private static final int FINISHING = 2;
+    private static final int FINISHED = 3;
+    
+    /** Resume latency statistics over all blocking executables. */
+    private static final AtomicLong resumeCount = new AtomicLong();
+    private static final AtomicLong totalResumeLatencyNanos = new AtomicLong();
+    private static final AtomicLong maxResumeLatencyNanos = new AtomicLong();
+    
     /** ExecutionContext provided by the Executor. */
     private ExecutionContext executionContext;
     
+    /** Current execution state. */
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    
     /** Thread that called execute(). */
-    private Thread executeCallerThread;
+    private volatile Thread executeCallerThread;
     
     /** Finishing thread.
      * 
@@ -53,10 +74,16 @@ public abstract class BlockingExecutable extends NodeImpl implements Executable
      * call to cancel etc. This variable holds a reference to the thread that
      * was granted finishing rights.
      */
-    private Thread finishingThread;
+    private volatile Thread finishingThread;
     
-    /** Boolean that signals whether stop has been called already. */
-    private boolean running = false;
+    /** Time finishExecution has been called. */
+    private volatile long finishTimestamp;
+    
+    /** Time between the last finishExecution call and the resumption of the execute() caller. */
+    private volatile long lastResumeLatencyNanos = -1;
+    
+    /** Failure to rethrow once the execute() caller resumes. */
+    private volatile RuntimeException executionFailure;
     
     public BlockingExecutable() {
     	super();
@@ -82,32 +109,31 @@ public abstract class BlockingExecutable extends NodeImpl implements Executable
      */
     public final void execute() {
         // initialize
-    	synchronized(this) {
-    		running = true;
-    		executeCallerThread = Thread.currentThread();
-    		finishingThread = null;
-    	}
+    	executeCallerThread = Thread.currentThread();
+    	finishingThread = null;
+    	executionFailure = null;
+    	state.set(RUNNING);
 
         // start execution
     	startExecution();
         
-        // put current thread to sleep until we wake it up with notify()
-        // only wait as long as we don't have a request for finishing an outcome
-        while (finishingThread == null) {
-            try {
-                synchronized(executeCallerThread) {
-                    executeCallerThread.wait();
-                }
-            } catch(InterruptedException e) {
-                logger.warn("TaskOutcome thread interrupted", e);
-                e.printStackTrace();
+        // park the current thread until finishExecution unparks it
+        while (state.get() != FINISHED) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                logger.warn("TaskOutcome thread interrupted");
             }
         }
+        recordResumeLatency(System.nanoTime() - finishTimestamp);
         
         // cleanup
-        synchronized(this) {
-        	executeCallerThread = null;
-        	running = false;
+        executeCallerThread = null;
+        state.set(IDLE);
+        
+        RuntimeException failure = executionFailure;
+        if (failure != null) {
+        	executionFailure = null;
+        	throw failure;
         }
     }
     
@@ -123,8 +149,8 @@ public abstract class BlockingExecutable extends NodeImpl implements Executable
      * Calling finishExecution is only allowed for the thread that
      * receives true as a result.
      */
-    protected synchronized boolean getFinishExecutionLock() {
-    	if (running && finishingThread == null) {
+    protected boolean getFinishExecutionLock() {
+    	if (state.compareAndSet(RUNNING, FINISHING)) {
     		finishingThread = Thread.currentThread();
     		return true;
     	} else {
@@ -146,10 +172,11 @@ public abstract class BlockingExecutable extends NodeImpl implements Executable
     		throw new IllegalStateException("Another thread was attributed with the finishExecutionLock!.");
     	}
     	
-    	// wake up the element execution thread, but first set the outcome
-		synchronized(executeCallerThread) {
-			executeCallerThread.notifyAll();
-		}
+    	// wake up the element execution thread
+    	Thread caller = executeCallerThread;
+    	finishTimestamp = System.nanoTime();
+    	state.set(FINISHED);
+    	LockSupport.unpark(caller);
 	}
     
     /**
@@ -169,4 +196,45 @@ public abstract class BlockingExecutable extends NodeImpl implements Executable
     /** Called when cancel successfully acquires the finish execution lock. */
     protected void cancelExecution() {
     }
+    
+    /**
+     * Finishes the execution with a failure, which is thrown by execute() once it resumes.
+     * For failures that happen on another thread than the one that called execute().
+     * Does nothing if the finish execution lock has already been granted to another thread.
+     */
+    protected void failExecution(RuntimeException failure) {
+    	if (getFinishExecutionLock()) {
+    		executionFailure = failure;
+    		finishExecution();
+    	}
+    }
+    
+    /**
+     * Returns the time in nanoseconds between the last call to finishExecution and the
+     * resumption of the thread that called execute(), -1 if not executed yet.
+     */
+    public long getLastResumeLatencyNanos() {
+    	return lastResumeLatencyNanos;
+    }
+    
+    private void recordResumeLatency(long latency) {
+    	lastResumeLatencyNanos = latency;
+    	resumeCount.incrementAndGet();
+    	totalResumeLatencyNanos.addAndGet(latency);
+    	long max = maxResumeLatencyNanos.get();
+    	while (latency > max && !maxResumeLatencyNanos.compareAndSet(max, latency)) {
+    		max = maxResumeLatencyNanos.get();
+    	}
+    }
+    
+    /** Returns the mean resume latency over all blocking executables, in nanoseconds. */
+    public static long getMeanResumeLatencyNanos() {
+    	long count = resumeCount.get();
+    	return count > 0 ? totalResumeLatencyNanos.get() / count : 0;
+    }
+    
+    /** Returns the maximum resume latency over all blocking executables, in nanoseconds. */
+    public static long getMaxResumeLatencyNanos() {
+    	return maxResumeLatencyNanos.get();
+    }
 }
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Completion of an asynchronous element execution.
+ *
+ * The execution is finished exactly once, either by complete, fail or cancel. The first call wins,
+ * later calls return false, which allows responses, timeouts and cancellation to race for the
+ * completion the same way getFinishExecutionLock does for blocking executables.
+ *
+ * AsyncExecutable cancels in two steps: startCancel reserves the completion, so that
+ * complete and fail return false from then on, while the future is only reported as done
+ * once the executable has stopped its work and called completeCancel.
+ *
+ * Completion listeners are called on the thread that finishes the execution (usually the AWT
+ * thread), or immediately if the execution is already finished when they are added. They should
+ * therefore return quickly.
+ */
+public class ExecutionFuture implements Future<Void> {
+
+	private static Logger logger = LoggerFactory.getLogger(ExecutionFuture.class);
+
+	/** Listener notified once the execution has finished. */
+	public interface CompletionListener {
+		public void executionCompleted(ExecutionFuture future);
+	}
+
+	private static final int PENDING = 0;
+	private static final int COMPLETED = 1;
+	private static final int FAILED = 2;
+	private static final int CANCELLED = 3;
+	private static final int CANCELLING = 4;
+	private static final int FINISHING = 5;
+
+	private final AtomicInteger state = new AtomicInteger(PENDING);
+	private final CountDownLatch done = new CountDownLatch(1);
+
+	/** Listeners to notify, guarded by itself. */
+	private final List<CompletionListener> listeners = new ArrayList<CompletionListener>();
+	private boolean listenersNotified = false;
+
+	private volatile Throwable failure;
+	private volatile long completionTimestamp;
+
+	/**
+	 * Finishes the execution successfully.
+	 *
+	 * @return false if the execution has already been finished
+	 */
+	public boolean complete() {
+		return finish(COMPLETED, null);
+	}
+
+	/**
+	 * Finishes the execution with an error.
+	 *
+	 * @return false if the execution has already been finished
+	 */
+	public boolean fail(Throwable cause) {
+		return finish(FAILED, cause);
+	}
+
+	/**
+	 * Cancels the execution. The execution is not interrupted, it is up to the
+	 * executable to stop its work.
+	 *
+	 * @return false if the execution has already been finished
+	 */
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return finish(CANCELLED, null);
+	}
+
+	/**
+	 * Reserves the completion for a cancellation that is finished later by completeCancel.
+	 *
+	 * @return false if the execution has already been finished or is being cancelled
+	 */
+	boolean startCancel() {
+		return state.compareAndSet(PENDING, CANCELLING);
+	}
+
+	/** Finishes a cancellation started by startCancel. */
+	void completeCancel() {
+		if (state.compareAndSet(CANCELLING, CANCELLED)) {
+			finished();
+		}
+	}
+
+	private boolean finish(int newState, Throwable cause) {
+		// reserve the completion first, so that the failure is set before the final state is published
+		if (!state.compareAndSet(PENDING, FINISHING)) {
+			return false;
+		}
+		failure = cause;
+		state.set(newState);
+		finished();
+		return true;
+	}
+
+	private void finished() {
+		completionTimestamp = System.nanoTime();
+		done.countDown();
+		notifyListeners();
+	}
+
+	/** Adds a listener, which is called immediately if the execution has already finished. */
+	public void addCompletionListener(CompletionListener listener) {
+		synchronized (listeners) {
+			if (!listenersNotified) {
+				listeners.add(listener);
+				return;
+			}
+		}
+		notifyListener(listener);
+	}
+
+	private void notifyListeners() {
+		List<CompletionListener> toNotify;
+		synchronized (listeners) {
+			listenersNotified = true;
+			toNotify = new ArrayList<CompletionListener>(listeners);
+			listeners.clear();
+		}
+		for (CompletionListener listener : toNotify) {
+			notifyListener(listener);
+		}
+	}
+
+	private void notifyListener(CompletionListener listener) {
+		try {
+			listener.executionCompleted(this);
+		} catch (RuntimeException e) {
+			// one failing listener must not prevent the others from being notified
+			logger.error(e.getMessage(), e);
+		}
+	}
+
+	public boolean isDone() {
+		int current = state.get();
+		return current != PENDING && current != CANCELLING && current != FINISHING;
+	}
+
+	public boolean isCancelled() {
+		return state.get() == CANCELLED;
+	}
+
+	/** Returns whether the execution has finished with an error. */
+	public boolean isFailed() {
+		return state.get() == FAILED;
+	}
+
+	/** Returns the error the execution has failed with, or null. */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/** Returns the System.nanoTime at which the execution has finished, 0 if it has not finished yet. */
+	public long getCompletionTimestamp() {
+		return completionTimestamp;
+	}
+
+	public Void get() throws InterruptedException, ExecutionException {
+		done.await();
+		return report();
+	}
+
+	public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if (!done.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return report();
+	}
+
+	private Void report() throws ExecutionException {
+		switch (state.get()) {
+		case CANCELLED:
+			throw new CancellationException();
+		case FAILED:
+			throw new ExecutionException(failure);
+		default:
+			return null;
+		}
+	}
+}
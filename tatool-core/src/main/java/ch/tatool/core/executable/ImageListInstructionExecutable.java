@@ -18,7 +18,6 @@
  ******************************************************************************/
 package ch.tatool.core.executable;
 
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -28,6 +27,7 @@ import javax.swing.JPanel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ch.tatool.core.data.StimulusCache;
 import ch.tatool.core.display.swing.panel.CenteredTextPanel;
 import ch.tatool.element.Element;
 import ch.tatool.element.Initializable;
@@ -69,14 +69,12 @@ public class ImageListInstructionExecutable extends ListInstructionExecutable im
 			if (logger.isDebugEnabled()) {
 				logger.debug("Searching resource " + path);
 			}
-			URL imageURL = getClass().getResource(path);
-			if (imageURL == null) {
-				logger.warn("Resource file not found: " + path);
+			ImageIcon icon = StimulusCache.getDefault().getImage(getClass(), path);
+			if (icon == null) {
 				continue;
 			}
 		
 			// Create a panel displaying the image
-			ImageIcon icon = new ImageIcon(imageURL);
 			CenteredTextPanel panel = new CenteredTextPanel();
 			panel.setIcon(icon);
 			panels.add(panel);
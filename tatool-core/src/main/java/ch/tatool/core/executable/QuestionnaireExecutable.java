@@ -19,14 +19,8 @@
 package ch.tatool.core.executable;
 
 import java.awt.event.KeyEvent;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import javax.swing.ImageIcon;
@@ -34,7 +28,6 @@ import javax.swing.ImageIcon;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import au.com.bytecode.opencsv.CSVReader;
 import ch.tatool.core.data.DataUtils;
 import ch.tatool.core.data.Level;
 import ch.tatool.core.data.Misc;
@@ -52,6 +45,7 @@ import ch.tatool.core.display.swing.container.ContainerUtils;
 import ch.tatool.core.display.swing.container.RegionsContainer;
 import ch.tatool.core.display.swing.container.RegionsContainer.Region;
 import ch.tatool.core.display.swing.panel.CenteredTextPanel;
+import ch.tatool.core.element.handler.pause.Prefetchable;
 import ch.tatool.core.element.handler.timeout.DefaultTimeoutHandler;
 import ch.tatool.data.DescriptivePropertyHolder;
 import ch.tatool.data.Property;
@@ -69,7 +63,7 @@ import ch.tatool.exec.ExecutionPhaseListener;
  * @author Andre Locher
  */
 public class QuestionnaireExecutable extends BlockingAWTExecutable implements
-		ActionPanelListener, ExecutionPhaseListener, DescriptivePropertyHolder{
+		ActionPanelListener, ExecutionPhaseListener, DescriptivePropertyHolder, Prefetchable {
 
 	Logger logger = LoggerFactory.getLogger(QuestionnaireExecutable.class);
 
@@ -81,7 +75,13 @@ public class QuestionnaireExecutable extends BlockingAWTExecutable implements
 	public String stimuliFile = "questionnaire_stimuli.csv";
 	public String stimuliPath = "/ch/tatool/data/questionnaire/";
 
-	private List<String[]> stimuliData = new ArrayList<String[]>();
+	/** Number of upcoming questions for which the image is loaded in advance. */
+	private int prefetchCount = 3;
+
+	private StimulusSource stimulusSource;
+
+	/** Whether the current stimulus has already been fetched during the pause before the execution. */
+	private boolean stimulusPrefetched = false;
 
 	/** Question panel. */
 	private CenteredTextPanel imgPanel;
@@ -198,7 +198,11 @@ public class QuestionnaireExecutable extends BlockingAWTExecutable implements
 		ExecutionContext context = getExecutionContext();
 		
 		// get current stimulus
-		getCurrentStimulus();
+		if (stimulusPrefetched) {
+			stimulusPrefetched = false;
+		} else {
+			getCurrentStimulus();
+		}
 		
 		// check for question dependency
 		if (!stimulusInfo[1].equals("")) {
@@ -221,9 +225,7 @@ public class QuestionnaireExecutable extends BlockingAWTExecutable implements
 
 
 		item = stimulusInfo[3];
-		URL iconURL = getClass()
-				.getResource(stimuliPath + item);
-		ImageIcon icon = new ImageIcon(iconURL);
+		ImageIcon icon = stimulusSource.getCurrentImage();
 		correctResponse = "";
 		givenResponse = null;
 
@@ -253,41 +255,32 @@ public class QuestionnaireExecutable extends BlockingAWTExecutable implements
 	}
 
 	private void getCurrentStimulus() {
-		// read stimuli list if none available in the list
-		if (stimuliData.size() > 0) {
-			stimulusInfo = stimuliData.get(0);
-			stimuliData.remove(0);
-		} else {
+		// the source starts over once all stimuli have been consumed
+		if (stimulusSource == null) {
 			readStimuli();
-			stimulusInfo = stimuliData.get(0);
-			stimuliData.remove(0);
 		}
+		stimulusInfo = stimulusSource.next();
 	}
 
-	public void readStimuli() {
-			// read stimuli info
-		stimuliData.clear();
-
-		CSVReader reader = null;
-		try {
-			reader = new CSVReader(new InputStreamReader(this.getClass()
-					.getResourceAsStream(stimuliPath + stimuliFile),
-					"ISO-8859-1"), ';','"',1);
-		} catch (UnsupportedEncodingException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
+	/**
+	 * Moves to the next stimulus and waits for its image to be loaded, so that
+	 * startExecutionAWT does not have to do this on the AWT thread.
+	 */
+	public void prefetch(ExecutionContext context) {
+		if (!stimulusPrefetched) {
+			getCurrentStimulus();
+			stimulusSource.getCurrentImage();
+			stimulusPrefetched = true;
 		}
-		try {
-			stimuliData = reader.readAll();
-		} catch (IOException e) {
-			logger.error(e.getMessage(), e);
-		} finally {
-			try {
-				reader.close();
-			} catch (IOException e) {
-				logger.error(e.getMessage(), e);
-			}
+	}
+
+	/** (Re)opens the stimuli file, the next stimulus will be the first one in the file. */
+	public void readStimuli() {
+		if (stimulusSource != null) {
+			stimulusSource.reset();
 		}
+		stimulusPrefetched = false;
+		stimulusSource = new StimulusSource(getClass(), stimuliPath, stimuliFile, 3, prefetchCount);
 	}
 	
 	/**
@@ -406,4 +399,13 @@ public class QuestionnaireExecutable extends BlockingAWTExecutable implements
 		this.stimuliPath = stimuliPath;
 	}
 
+	public int getPrefetchCount() {
+		return prefetchCount;
+	}
+
+	/** Set the number of upcoming questions for which the image is loaded in advance. */
+	public void setPrefetchCount(int prefetchCount) {
+		this.prefetchCount = prefetchCount;
+	}
+
 }
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.swing.ImageIcon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import au.com.bytecode.opencsv.CSVReader;
+import ch.tatool.core.data.StimulusCache;
+
+/**
+ * Streaming source of stimuli read from a CSV resource.
+ * 
+ * Rows are read incrementally and consumed through a cursor (next), only a small window of
+ * rows ahead of the cursor is kept in memory. For each row in that window the image referenced
+ * by the image column is loaded on a background thread, so that the image is usually available
+ * by the time the row is reached. Once all rows have been consumed the resource is read again
+ * from the start. The images are shared through the StimulusCache, the stimuli file is
+ * streamed from the resource and not cached.
+ * 
+ * Instances are not thread-safe and should only be used by the thread executing the element.
+ */
+public class StimulusSource {
+
+	Logger logger = LoggerFactory.getLogger(StimulusSource.class);
+	
+	/** Background thread used to load the images of upcoming stimuli. */
+	private static ExecutorService prefetchExecutor;
+	
+	private Class<?> resourceClass;
+	private String stimuliPath;
+	private String stimuliFile;
+	private int imageColumn;
+	private int prefetchCount;
+	
+	/** Reader of the currently open resource, null if none is open. */
+	private CSVReader reader;
+	
+	/** Rows read ahead of the cursor. */
+	private LinkedList<Stimulus> window;
+	
+	/** Stimulus at the cursor. */
+	private Stimulus current;
+	
+	/**
+	 * Create a new stimulus source.
+	 * 
+	 * @param resourceClass the class used to load the resources
+	 * @param stimuliPath the resource path of the stimuli, used for both the CSV file and the images
+	 * @param stimuliFile the name of the CSV file
+	 * @param imageColumn the column containing the image name, or -1 if there are no images
+	 * @param prefetchCount the number of rows ahead of the cursor for which images are loaded
+	 */
+	public StimulusSource(Class<?> resourceClass, String stimuliPath, String stimuliFile, int imageColumn, int prefetchCount) {
+		this.resourceClass = resourceClass;
+		this.stimuliPath = stimuliPath;
+		this.stimuliFile = stimuliFile;
+		this.imageColumn = imageColumn;
+		this.prefetchCount = Math.max(0, prefetchCount);
+		this.window = new LinkedList<Stimulus>();
+	}
+	
+	/**
+	 * Moves the cursor to the next stimulus and returns its data.
+	 * 
+	 * @throws IllegalStateException if the resource does not contain any stimuli
+	 */
+	public String[] next() {
+		if (window.isEmpty()) {
+			fillWindow();
+			if (window.isEmpty()) {
+				// end of the resource reached, start over
+				open();
+				fillWindow();
+				if (window.isEmpty()) {
+					throw new IllegalStateException("No stimuli found in " + stimuliPath + stimuliFile);
+				}
+			}
+		}
+		current = window.removeFirst();
+		fillWindow();
+		return current.data;
+	}
+	
+	/** Returns the data of the stimulus at the cursor, or null if next has not been called yet. */
+	public String[] getCurrent() {
+		return current != null ? current.data : null;
+	}
+	
+	/**
+	 * Returns the image of the stimulus at the cursor.
+	 * 
+	 * Waits for the image to be loaded if this did not happen yet.
+	 */
+	public ImageIcon getCurrentImage() {
+		if (current == null || current.image == null) {
+			return null;
+		}
+		try {
+			return current.image.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return loadImage(current.data[imageColumn]);
+		} catch (ExecutionException e) {
+			logger.error(e.getMessage(), e);
+			return null;
+		}
+	}
+	
+	/** Closes the resource and moves the cursor back to the first stimulus. */
+	public void reset() {
+		close();
+		window.clear();
+		current = null;
+	}
+	
+	/** Closes the resource. Pending images are still loaded. */
+	public void close() {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+			}
+			reader = null;
+		}
+	}
+	
+	/** Reads rows until the window contains the prefetched rows plus the next one. */
+	private void fillWindow() {
+		if (reader == null && current == null && window.isEmpty()) {
+			open();
+		}
+		while (reader != null && window.size() <= prefetchCount) {
+			String[] data;
+			try {
+				data = reader.readNext();
+			} catch (IOException e) {
+				logger.error(e.getMessage(), e);
+				data = null;
+			}
+			if (data == null) {
+				close();
+				break;
+			}
+			window.addLast(new Stimulus(data, prefetchImage(data)));
+		}
+	}
+	
+	private void open() {
+		close();
+		InputStream in = resourceClass.getResourceAsStream(stimuliPath + stimuliFile);
+		if (in == null) {
+			logger.error("Stimuli file " + stimuliPath + stimuliFile + " not found");
+			return;
+		}
+		try {
+			reader = new CSVReader(new InputStreamReader(in, "ISO-8859-1"), ';', '"', 1);
+		} catch (UnsupportedEncodingException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+	
+	private Future<ImageIcon> prefetchImage(String[] data) {
+		if (imageColumn < 0 || imageColumn >= data.length || data[imageColumn] == null || data[imageColumn].length() == 0) {
+			return null;
+		}
+		final String image = data[imageColumn];
+		return getPrefetchExecutor().submit(new Callable<ImageIcon>() {
+			public ImageIcon call() {
+				return loadImage(image);
+			}
+		});
+	}
+	
+	/** Loads an image, blocks until the image data is available. */
+	protected ImageIcon loadImage(String image) {
+		return StimulusCache.getDefault().getImage(resourceClass, stimuliPath + image);
+	}
+	
+	private static synchronized ExecutorService getPrefetchExecutor() {
+		if (prefetchExecutor == null) {
+			prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "tatool-stimulus-prefetch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return prefetchExecutor;
+	}
+	
+	/** Row together with its (possibly still loading) image. */
+	private static class Stimulus {
+		private final String[] data;
+		private final Future<ImageIcon> image;
+		
+		private Stimulus(String[] data, Future<ImageIcon> image) {
+			this.data = data;
+			this.image = image;
+		}
+	}
+}
@@ -49,6 +49,7 @@ public class DataServerModuleCreator implements ModuleCreator {
 	private UserAccount userAccount;
 	private ProgressDialog progressDialog;
 	private Messages messages;
+	private int importBatchSize = ModuleCreationWorker.DEFAULT_IMPORT_BATCH_SIZE;
 
 	private TatoolOnlineDialog dialog;
 
@@ -147,6 +148,8 @@ public class DataServerModuleCreator implements ModuleCreator {
 		// create a worker to create the module
 		final ModuleCreationWorker worker2 = new ModuleCreationWorker();
 		worker2.setMessages(messages);
+		worker2.setImportBatchSize(importBatchSize);
+		worker2.setProgressDialog(progressDialog);
 		worker2.createModule(moduleService, userAccount, worker.getFile(), workerModule.getFile(), null, true);
 		
 		// finish the creator
@@ -197,6 +200,15 @@ public class DataServerModuleCreator implements ModuleCreator {
 	public void setServerUrl(String serverUrl) {
 		this.serverUrl = serverUrl;
 	}
+
+	public int getImportBatchSize() {
+		return importBatchSize;
+	}
+
+	/** Set the number of module data rows imported between two progress updates. */
+	public void setImportBatchSize(int importBatchSize) {
+		this.importBatchSize = importBatchSize;
+	}
 	
 	public void setMessages(Messages messages) {
     	this.messages = messages;
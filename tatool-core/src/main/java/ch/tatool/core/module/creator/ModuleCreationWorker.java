@@ -18,18 +18,19 @@
  ******************************************************************************/
 package ch.tatool.core.module.creator;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.swing.SwingUtilities;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +47,18 @@ public class ModuleCreationWorker implements Worker {
 	
 	Logger logger = LoggerFactory.getLogger(ModuleCreationWorker.class);
 
+	/** Default number of module data rows imported between two progress updates. */
+	public static final int DEFAULT_IMPORT_BATCH_SIZE = 1000;
+	
+	/** Number of module data rows imported between two progress updates. */
+	private int importBatchSize = DEFAULT_IMPORT_BATCH_SIZE;
+	
+	/** Dialog to report the module data import progress to, may be null. */
+	private ProgressDialog progressDialog;
+	
+	/** Last progress value posted to the progress dialog, in percent. */
+	private int lastProgress;
+
 	private String errorTitle;
 	private String errorText;
 	private Module module;
@@ -132,63 +145,155 @@ public class ModuleCreationWorker implements Worker {
 	}
 
 	/**
-	 * Add module data from tatool online
+	 * Add module data from tatool online.
+	 * 
+	 * The data file is streamed row by row instead of being loaded as a whole, and the
+	 * progress is reported every importBatchSize rows. The values themselves are kept in
+	 * the module until it is saved at the end, so they still need memory in proportion
+	 * to the size of the file.
 	 * 
 	 * @param moduleService
 	 * @param moduleDataFile
 	 */
 	private void loadModuleData(ModuleService moduleService, File moduleDataFile) {
 		// add module data if available
-		if (moduleDataFile != null) {
-			
-			List<String[]> moduleData = new ArrayList<String[]>();
-			CSVReader reader = null;
-			try {
-				reader = new CSVReader(new InputStreamReader(new FileInputStream(moduleDataFile),
-						"ISO-8859-1"), ';');
-			} catch (FileNotFoundException e) {
-				e.printStackTrace();
-			} catch (UnsupportedEncodingException e) {
-				e.printStackTrace();
-			}
-			try {
-				moduleData = reader.readAll();
-			} catch (IOException e) {
-				logger.error(e.getMessage(), e);
-			} finally {
-				try {
-					reader.close();
-				} catch (IOException e) {
-					logger.error(e.getMessage(), e);
-				}
-			}
-			
-			// add module data to module
-			for (int i = 0; i < moduleData.size(); i++) {
-				String[] data = moduleData.get(i);
-
-				String nodeID = "";
-				String propertyName = "";
-				String propertyValue = "";
-				if (data[0] == null) {
-					nodeID = "";
-				} else {
-					nodeID = data[0];
-				}
-				if (data[1] == null) {
-					propertyName = "";
-				} else {
-					propertyName = data[1];
+		if (moduleDataFile == null) {
+			return;
+		}
+		
+		CountingInputStream in = null;
+		CSVReader reader = null;
+		try {
+			in = new CountingInputStream(new FileInputStream(moduleDataFile));
+			reader = new CSVReader(new InputStreamReader(in, "ISO-8859-1"), ';');
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+			closeQuietly(in);
+			return;
+		}
+		
+		long totalBytes = moduleDataFile.length();
+		int batchSize = Math.max(1, importBatchSize);
+		startProgress();
+		
+		// one property object per property name, module data files only use a handful
+		Map<String, StringProperty> dataProperties = new HashMap<String, StringProperty>();
+		int rows = 0;
+		try {
+			String[] data;
+			while ((data = reader.readNext()) != null) {
+				String propertyName = getColumn(data, 1);
+				StringProperty dataProperty = dataProperties.get(propertyName);
+				if (dataProperty == null) {
+					dataProperty = new StringProperty(propertyName);
+					dataProperties.put(propertyName, dataProperty);
 				}
-				if (data[2] == null) {
-					propertyValue = "";
-				} else {
-					propertyValue = data[2];
+				dataProperty.setValue(module, getColumn(data, 0), getColumn(data, 2));
+				
+				rows++;
+				if (rows % batchSize == 0) {
+					updateProgress(in.getCount(), totalBytes);
 				}
-				StringProperty dataProperty = new StringProperty(propertyName);
-				dataProperty.setValue(module, nodeID, propertyValue);
 			}
-			moduleService.saveModule(module);
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+		} finally {
+			closeQuietly(reader);
+		}
+		updateProgress(totalBytes, totalBytes);
+		
+		moduleService.saveModule(module);
+	}
+	
+	/** Returns the given column of a module data row, or an empty String if not available. */
+	private static String getColumn(String[] data, int index) {
+		if (index >= data.length || data[index] == null) {
+			return "";
+		}
+		return data[index];
+	}
+	
+	private void closeQuietly(Closeable closeable) {
+		if (closeable == null) {
+			return;
+		}
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			logger.error(e.getMessage(), e);
+		}
+	}
+	
+	/** Switches the progress dialog to a determinate progress bar. */
+	private void startProgress() {
+		if (progressDialog == null) {
+			return;
+		}
+		lastProgress = 0;
+		final ProgressDialog dialog = progressDialog;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				dialog.setMinimum(0);
+				dialog.setMaximum(100);
+				dialog.setValue(0);
+				dialog.setIndeterminate(false);
+			}
+		});
+	}
+	
+	/** Posts the progress to the dialog, only if it changed by at least one percent. */
+	private void updateProgress(long bytesRead, long totalBytes) {
+		if (progressDialog == null || totalBytes <= 0) {
+			return;
+		}
+		final int progress = (int) Math.min(100, bytesRead * 100 / totalBytes);
+		if (progress == lastProgress) {
+			return;
+		}
+		lastProgress = progress;
+		final ProgressDialog dialog = progressDialog;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				dialog.setValue(progress);
+			}
+		});
+	}
+	
+	/** InputStream that keeps track of the number of bytes read. */
+	private static class CountingInputStream extends FilterInputStream {
+		private long count;
+		
+		public CountingInputStream(InputStream in) {
+			super(in);
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+		
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
 		}
 	}
 
@@ -227,4 +332,22 @@ public class ModuleCreationWorker implements Worker {
     public Messages getMessages() {
 		return messages;
 	}
+
+	public int getImportBatchSize() {
+		return importBatchSize;
+	}
+
+	/** Set the number of module data rows imported between two progress updates. */
+	public void setImportBatchSize(int importBatchSize) {
+		this.importBatchSize = importBatchSize;
+	}
+
+	public ProgressDialog getProgressDialog() {
+		return progressDialog;
+	}
+
+	/** Set the dialog the module data import progress is reported to. */
+	public void setProgressDialog(ProgressDialog progressDialog) {
+		this.progressDialog = progressDialog;
+	}
 }
@@ -18,6 +18,7 @@
  ******************************************************************************/
 package ch.tatool.core.module.initializer;
 
+import ch.tatool.core.data.TrialHistoryCache;
 import ch.tatool.core.element.DefaultExecutionStrategy;
 import ch.tatool.data.Module;
 import ch.tatool.element.Element;
@@ -56,6 +57,7 @@ public class MemoryExecutorInitializer implements ExecutorInitializer {
 		executor.setExecutionStrategy(strategy);
 		ElementTree tree = executor.getExecutionTree();
 		tree.setRootElement(rootElement);
+		TrialHistoryCache.register(executor);
 	}
 
 	public Element getRootElement() {
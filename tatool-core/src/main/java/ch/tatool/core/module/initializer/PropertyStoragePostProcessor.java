@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.module.initializer;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import ch.tatool.core.element.AbstractPropertyHolder;
+import ch.tatool.core.element.PropertyStore;
+
+/**
+ * Spring bean post processor that sets the property store of all property holders created
+ * by a module context.
+ * 
+ * As the processor is registered with the context, it also covers prototype and lazily
+ * initialized beans created during the execution.
+ */
+public class PropertyStoragePostProcessor implements BeanPostProcessor {
+
+	/** Store used as template, each holder gets a new store of the same kind. */
+	private PropertyStore propertyStore;
+	
+	public PropertyStoragePostProcessor(PropertyStore propertyStore) {
+		this.propertyStore = propertyStore;
+	}
+	
+	public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+		if (bean instanceof AbstractPropertyHolder) {
+			((AbstractPropertyHolder) bean).setPropertyStore(propertyStore.newStore());
+		}
+		return bean;
+	}
+
+	public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+		return bean;
+	}
+}
@@ -33,7 +33,11 @@ import org.springframework.context.support.GenericXmlApplicationContext;
 import org.springframework.core.io.ByteArrayResource;
 
 import ch.tatool.core.data.DataUtils;
+import ch.tatool.core.data.TrialHistoryCache;
+import ch.tatool.core.element.CompactPropertyStore;
 import ch.tatool.core.element.DefaultExecutionStrategy;
+import ch.tatool.core.element.ExecutionPlan;
+import ch.tatool.core.element.PropertyStore;
 import ch.tatool.core.module.creator.CreationException;
 import ch.tatool.data.Module;
 import ch.tatool.element.Element;
@@ -56,6 +60,16 @@ public class SpringExecutorInitializer implements ExecutorInitializer {
     Logger logger = LoggerFactory.getLogger(SpringExecutorInitializer.class);
 	
     public static final String SPRING_ELEMENT_CONFIGURATION_XML_PROPERTY = "SpringXmlElementConfig";
+    
+    /**
+     * Module property that defines how elements and handlers store their properties.
+     * Set to compact to use the memory efficient CompactPropertyStore, the HashMap based store is used otherwise.
+     */
+    public static final String PROPERTY_PROPERTY_STORAGE = "module.execution.propertyStorage";
+    public static final String PROPERTY_STORAGE_COMPACT = "compact";
+    
+    /** Module property enabling the compiled execution plan, set to "true" to enable it. */
+    public static final String PROPERTY_COMPILED_EXECUTION = "module.execution.compiled";
 
     /** Configures the executor with the given module. */
 	public void initialize(Executor executor, Module module) {
@@ -65,11 +79,18 @@ public class SpringExecutorInitializer implements ExecutorInitializer {
 		
 		// instantiate the execution strategy
 		setupExecutionStrategy(executor, module);
+		
+		// answer trial history queries during the session from memory
+		TrialHistoryCache.register(executor);
 	}
 	
 	protected void setupExecutionStrategy(Executor executor, Module module) {
-		// TODO: make this configurable through a module property
-		executor.setExecutionStrategy(new DefaultExecutionStrategy());
+		DefaultExecutionStrategy strategy = new DefaultExecutionStrategy();
+		if (Boolean.parseBoolean(module.getModuleProperties().get(PROPERTY_COMPILED_EXECUTION))) {
+			// analyse the hierarchy once instead of on every step
+			strategy.setExecutionPlan(ExecutionPlan.compile(executor.getExecutionTree().getRootElement()));
+		}
+		executor.setExecutionStrategy(strategy);
 	}
 	
 	/**
@@ -146,18 +167,39 @@ public class SpringExecutorInitializer implements ExecutorInitializer {
             throw new RuntimeException("Unable to load Tatool file. Configuration is missing!");
         }
         
-        // load the configuration
-        return loadRootElementFromSpringXML(configXML);
+        // load the configuration, using the property storage requested by the module
+        String storage = module.getModuleProperties().get(PROPERTY_PROPERTY_STORAGE);
+        if (PROPERTY_STORAGE_COMPACT.equals(storage)) {
+        	return loadRootElementFromSpringXML(configXML, new CompactPropertyStore());
+        } else {
+        	return loadRootElementFromSpringXML(configXML);
+        }
     }
     
     /**
      * Checks whether a configuration xml is valid or not.
      */
     protected Element loadRootElementFromSpringXML(String configXML) {
+    	return loadRootElementFromSpringXML(configXML, null);
+    }
+    
+    /**
+     * Loads the root element of a configuration xml.
+     * 
+     * @param propertyStore store template for all property holders created by the module context,
+     *        null to keep the default store
+     */
+    protected Element loadRootElementFromSpringXML(String configXML, PropertyStore propertyStore) {
         // try loading the configuration
     	moduleContext = null;
         try {
-        	moduleContext = new GenericXmlApplicationContext( new ByteArrayResource( configXML.getBytes() ) );
+        	GenericXmlApplicationContext context = new GenericXmlApplicationContext();
+        	if (propertyStore != null) {
+        		context.getBeanFactory().addBeanPostProcessor(new PropertyStoragePostProcessor(propertyStore));
+        	}
+        	context.load(new ByteArrayResource(configXML.getBytes()));
+        	context.refresh();
+        	moduleContext = context;
         } catch (BeansException be) {
         	logger.error("Unable to load Tatool file.", be);
             throw new RuntimeException("Unable to load Tatool file.");
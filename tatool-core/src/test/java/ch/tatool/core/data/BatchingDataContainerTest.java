@@ -0,0 +1,136 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ch.tatool.data.DataContainer;
+
+/**
+ * Tests the coalescing, flush and rollback of BatchingDataContainer.
+ */
+public class BatchingDataContainerTest {
+
+	/** Records the writes passed on to a container. */
+	private static class Target implements InvocationHandler {
+		private final Map<String, Object> values = new HashMap<String, Object>();
+		private final List<String> writes = new ArrayList<String>();
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			String key = args[0] + "." + args[1];
+			if (name.startsWith("put")) {
+				writes.add(name + " " + key + "=" + args[2]);
+				values.put(key, args[2]);
+				return null;
+			} else if (name.equals("getValue")) {
+				Object value = values.get(key);
+				return value != null ? value.toString() : null;
+			} else if (name.equals("containsValue")) {
+				return values.get(key) != null;
+			}
+			throw new UnsupportedOperationException(name);
+		}
+	}
+
+	@Test
+	public void testCoalescing() {
+		Target target = new Target();
+		BatchingDataContainer batch = new BatchingDataContainer(createContainer(DataContainer.class, target));
+		batch.putValue("node", "a", "1");
+		batch.putValue("node", "a", "2");
+		batch.putValue("node", "b", "x");
+		batch.putValue("other", "a", "3");
+		assertEquals(3, batch.getPendingCount());
+		assertTrue(target.writes.isEmpty());
+
+		// pending values are visible through the batch
+		assertEquals("2", batch.getValue("node", "a"));
+		assertEquals(2, batch.getIntValue("node", "a", 0));
+		assertNull(target.values.get("node.a"));
+
+		batch.flush();
+		assertEquals(0, batch.getPendingCount());
+		assertEquals(3, target.writes.size());
+		assertEquals("2", target.values.get("node.a"));
+		assertEquals("x", target.values.get("node.b"));
+		assertEquals("3", target.values.get("other.a"));
+
+		// nothing left to write
+		batch.flush();
+		assertEquals(3, target.writes.size());
+	}
+
+	@Test
+	public void testTypedValues() {
+		Target target = new Target();
+		BatchingDataContainer batch = new BatchingDataContainer(createContainer(TypedDataContainer.class, target));
+		batch.putIntValue("node", "i", 5);
+		batch.putLongValue("node", "l", 1L << 40);
+		batch.putDoubleValue("node", "d", 0.5);
+		batch.putValue("node", "removed", "x");
+		batch.putValue("node", "removed", null);
+		assertEquals(1L << 40, batch.getLongValue("node", "l", 0));
+		assertEquals("0.5", batch.getValue("node", "d"));
+		assertFalse(batch.containsValue("node", "removed"));
+
+		batch.flush();
+		// numeric values are passed on with the typed methods
+		assertTrue(target.writes.contains("putIntValue node.i=5"));
+		assertTrue(target.writes.contains("putLongValue node.l=" + (1L << 40)));
+		assertTrue(target.writes.contains("putDoubleValue node.d=0.5"));
+		assertTrue(target.writes.contains("putValue node.removed=null"));
+	}
+
+	@Test
+	public void testRollback() {
+		Target target = new Target();
+		BatchingDataContainer batch = new BatchingDataContainer(createContainer(DataContainer.class, target));
+		batch.putValue("node", "a", "1");
+		batch.flush();
+
+		batch.putValue("node", "a", "2");
+		batch.putIntValue("node", "b", 3);
+		batch.rollback();
+		assertEquals(0, batch.getPendingCount());
+		assertEquals("1", batch.getValue("node", "a"));
+		assertEquals(-1, batch.getIntValue("node", "b", -1));
+
+		batch.flush();
+		assertEquals(1, target.writes.size());
+		assertEquals("1", target.values.get("node.a"));
+	}
+
+	private <T extends DataContainer> T createContainer(Class<T> type, Target target) {
+		return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, target));
+	}
+}
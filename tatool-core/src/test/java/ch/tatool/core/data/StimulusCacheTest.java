@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+/**
+ * Tests the keys and the size limit of StimulusCache.
+ */
+public class StimulusCacheTest {
+
+	private static final String PATH = "/configurations/test-module-configuration.xml";
+
+	@Test
+	public void testValueKinds() {
+		StimulusCache cache = new StimulusCache(StimulusCache.DEFAULT_MAX_BYTES);
+		byte[] bytes = cache.getBytes(getClass(), PATH, null);
+		// the same path read as text is a separate entry
+		String text = cache.getText(getClass(), PATH, null, "UTF-8");
+		assertEquals(new String(bytes, Charset.forName("UTF-8")).replace("\r\n", "\n"), text);
+		assertEquals(2, cache.getSize());
+		assertEquals(0, cache.getHitCount());
+
+		assertSame(bytes, cache.getBytes(getClass(), PATH, null));
+		assertSame(text, cache.getText(getClass(), PATH, null, "UTF-8"));
+		assertEquals(2, cache.getHitCount());
+
+		// as is the text in another encoding
+		cache.getText(getClass(), PATH, null, "ISO-8859-1");
+		assertEquals(3, cache.getSize());
+	}
+
+	@Test
+	public void testMissingResource() {
+		StimulusCache cache = new StimulusCache(StimulusCache.DEFAULT_MAX_BYTES);
+		assertNull(cache.getBytes(getClass(), "/missing.txt", null));
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test
+	public void testMaxBytes() {
+		StimulusCache cache = new StimulusCache(StimulusCache.DEFAULT_MAX_BYTES);
+		int length = cache.getBytes(getClass(), PATH, null).length;
+		cache.getText(getClass(), PATH, null, "ISO-8859-1");
+		assertEquals(2, cache.getSize());
+
+		// keep only the most recently used entry
+		cache.getBytes(getClass(), PATH, null);
+		cache.setMaxBytes(length);
+		assertEquals(1, cache.getSize());
+		assertEquals(length, cache.getTotalBytes());
+		assertEquals(1, cache.getEvictionCount());
+	}
+}
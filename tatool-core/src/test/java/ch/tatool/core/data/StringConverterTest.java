@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.tatool.core.data.StringConverter.BinaryCodec;
+import ch.tatool.core.display.swing.matrix.MatrixValue;
+
+/**
+ * Round trip tests for the converters and codecs of StringConverter and the Base64 encoding
+ * of DataUtils.
+ */
+public class StringConverterTest {
+
+	private enum Color {
+		RED, GREEN
+	}
+
+	@Test
+	public void testConverters() {
+		assertEquals("text", StringConverter.convert("text", String.class));
+		assertEquals(Integer.MIN_VALUE, StringConverter.convert(String.valueOf(Integer.MIN_VALUE), Integer.class));
+		assertEquals(Long.MAX_VALUE, StringConverter.convert(String.valueOf(Long.MAX_VALUE), Long.class));
+		assertEquals(Boolean.TRUE, StringConverter.convert("true", Boolean.class));
+		assertEquals(0.1d, StringConverter.convert(String.valueOf(0.1d), Double.class));
+
+		// enum converters are created on first use
+		assertTrue(StringConverter.containsConverter(Color.class));
+		assertEquals(Color.GREEN, StringConverter.convert(StringConverter.toString(Color.GREEN), Color.class));
+
+		Date date = new Date(1318243384123L);
+		assertEquals(date, StringConverter.convert(StringConverter.toString(date), Date.class));
+	}
+
+	@Test
+	public void testArrays() {
+		int[] ints = { 0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		assertEquals("0,-1,2147483647,-2147483648", StringConverter.toString(ints));
+		assertArrayEquals(ints, (int[]) StringConverter.convert(StringConverter.toString(ints), int[].class));
+		assertArrayEquals(ints, decode(int[].class, ints));
+
+		long[] longs = { Long.MIN_VALUE, 0, Long.MAX_VALUE };
+		assertArrayEquals(longs, (long[]) StringConverter.convert(StringConverter.toString(longs), long[].class));
+		assertArrayEquals(longs, decode(long[].class, longs));
+
+		double[] doubles = { 0.1, -0.0, Double.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.NEGATIVE_INFINITY };
+		double[] converted = (double[]) StringConverter.convert(StringConverter.toString(doubles), double[].class);
+		assertEquals(doubles.length, converted.length);
+		double[] decoded = decode(double[].class, doubles);
+		for (int i = 0; i < doubles.length; i++) {
+			assertEquals(Double.doubleToRawLongBits(doubles[i]), Double.doubleToRawLongBits(converted[i]));
+			assertEquals(Double.doubleToRawLongBits(doubles[i]), Double.doubleToRawLongBits(decoded[i]));
+		}
+
+		// empty arrays
+		assertEquals(0, ((int[]) StringConverter.convert(StringConverter.toString(new int[0]), int[].class)).length);
+		assertEquals(0, decode(long[].class, new long[0]).length);
+	}
+
+	@Test
+	public void testMatrixValue() {
+		MatrixValue value = new MatrixValue();
+		value.row = 3;
+		value.column = 12;
+		value.value = "x,y:z";
+		// registered by the matrix package
+		MatrixValue converted = (MatrixValue) StringConverter.convert(StringConverter.toString(value), MatrixValue.class);
+		assertEquals(3, converted.row);
+		assertEquals(12, converted.column);
+		assertEquals("x,y:z", converted.value);
+	}
+
+	@Test
+	public void testBase64() {
+		Random random = new Random(0);
+		// all padding lengths
+		for (int length = 0; length < 64; length++) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+			String encoded = DataUtils.encodeBase64(data);
+			assertEquals(0, encoded.length() % 4);
+			assertArrayEquals(data, DataUtils.decodeBase64(encoded));
+		}
+		assertEquals("", DataUtils.encodeBase64(new byte[0]));
+		assertEquals("TWFu", DataUtils.encodeBase64("Man".getBytes()));
+		assertEquals("TWE=", DataUtils.encodeBase64("Ma".getBytes()));
+		assertEquals("TQ==", DataUtils.encodeBase64("M".getBytes()));
+	}
+
+	/** Encodes and decodes a value with the registered binary codec. */
+	private <T> T decode(Class<T> type, T value) {
+		BinaryCodec<T> codec = StringConverter.getBinaryCodec(type);
+		return codec.decode(DataUtils.decodeBase64(DataUtils.encodeBase64(codec.encode(value))));
+	}
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ch.tatool.core.element.ExecutableElement;
+import ch.tatool.data.DataService;
+import ch.tatool.data.ModuleSession;
+import ch.tatool.data.Trial;
+import ch.tatool.exec.ExecutionContext;
+import ch.tatool.exec.ExecutionData;
+import ch.tatool.exec.ExecutionPhase;
+import ch.tatool.exec.Executor;
+import ch.tatool.exec.PhaseListenerManager;
+
+/**
+ * Tests the registration of TrialHistoryCache and how it appends, queries and deduplicates trials.
+ */
+public class TrialHistoryCacheTest {
+
+	/** Stubs the methods of the execution interfaces used by the cache, returning itself for nested objects. */
+	private static class Stub implements InvocationHandler {
+		private final Map<String, Object> properties = new HashMap<String, Object>();
+		private ModuleSession session;
+		private List<Trial> storedTrials = new ArrayList<Trial>();
+		private List<Trial> executionTrials = new ArrayList<Trial>();
+		private ExecutionPhase phase;
+		private int listenerCount;
+		private int queryCount;
+
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("equals")) {
+				return proxy == args[0];
+			} else if (name.equals("getProperty")) {
+				return properties.get(args[0]);
+			} else if (name.equals("setProperty")) {
+				properties.put((String) args[0], args[1]);
+				return null;
+			} else if (name.equals("getPhase")) {
+				return phase;
+			} else if (name.equals("getExecutionData") || name.equals("getDataService") || name.equals("getPhaseListenerManager")) {
+				return proxy;
+			} else if (name.equals("getModule")) {
+				return null;
+			} else if (name.equals("getModuleSession")) {
+				return session;
+			} else if (name.equals("addExecutionPhaseListener")) {
+				listenerCount++;
+				return null;
+			} else if (name.equals("getTrials")) {
+				if (args == null) {
+					return executionTrials;
+				}
+				// DataService.getTrials, the last maxResults stored trials
+				queryCount++;
+				int maxResults = (Integer) args[3];
+				return new ArrayList<Trial>(storedTrials.subList(Math.max(0, storedTrials.size() - maxResults), storedTrials.size()));
+			}
+			throw new UnsupportedOperationException(name);
+		}
+	}
+
+	@Test
+	public void testRegister() {
+		Stub stub = new Stub();
+		Executor executor = createProxy(Executor.class, stub, PhaseListenerManager.class);
+		TrialHistoryCache cache = TrialHistoryCache.register(executor);
+		assertSame(cache, TrialHistoryCache.register(executor));
+		assertEquals(3, stub.listenerCount);
+	}
+
+	@Test
+	public void testTrials() {
+		Stub stub = new Stub();
+		ExecutionContext context = createProxy(ExecutionContext.class, stub, ExecutionData.class, DataService.class);
+		stub.session = createProxy(ModuleSession.class, stub);
+		ExecutableElement node = new ExecutableElement();
+		node.setLocalId("node");
+		TrialHistoryCache cache = new TrialHistoryCache();
+		stub.phase = ExecutionPhase.SESSION_START;
+		cache.processExecutionPhase(context);
+
+		// the trial with id 3 is stored before the execution finished, so it is loaded as another instance
+		stub.storedTrials.add(createTrial(1L, "node"));
+		stub.storedTrials.add(createTrial(2L, "node"));
+		stub.storedTrials.add(createTrial(3L, "node"));
+		assertEquals(Arrays.asList(1L, 2L, 3L), ids(TrialHistoryCache.getTrials(context, node, 3)));
+		assertEquals(1, stub.queryCount);
+
+		// appending the trials of the execution twice adds each of them once
+		Trial unstored = createTrial(null, "node");
+		stub.executionTrials = Arrays.asList(createTrial(3L, "node"), unstored, createTrial(4L, "other"));
+		stub.phase = ExecutionPhase.POST_PROCESS;
+		cache.processExecutionPhase(context);
+		cache.processExecutionPhase(context);
+
+		List<Trial> trials = TrialHistoryCache.getTrials(context, node, 3);
+		assertEquals(Arrays.asList(2L, 3L, null), ids(trials));
+		assertSame(unstored, trials.get(2));
+		assertEquals(Arrays.asList(3L, null), ids(TrialHistoryCache.getTrials(context, node, 2)));
+		assertEquals(1, stub.queryCount);
+
+		// queries for more trials than cached go to the data service
+		TrialHistoryCache.getTrials(context, node, 10);
+		assertEquals(2, stub.queryCount);
+
+		// a new session starts with an empty cache
+		stub.phase = ExecutionPhase.SESSION_FINISH;
+		cache.processExecutionPhase(context);
+		TrialHistoryCache.getTrials(context, node, 3);
+		assertEquals(3, stub.queryCount);
+	}
+
+	private Trial createTrial(final Long id, final String parentId) {
+		return createProxy(Trial.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getId")) {
+					return id;
+				} else if (method.getName().equals("getParentId")) {
+					return parentId;
+				} else if (method.getName().equals("equals")) {
+					return proxy == args[0];
+				} else if (method.getName().equals("hashCode")) {
+					return System.identityHashCode(proxy);
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+
+	private List<Long> ids(List<Trial> trials) {
+		List<Long> ids = new ArrayList<Long>();
+		for (Trial trial : trials) {
+			ids.add(trial.getId());
+		}
+		return ids;
+	}
+
+	/** Creates a proxy of the type that also implements the additional interfaces. */
+	private <T> T createProxy(Class<T> type, InvocationHandler handler, Class<?>... additionalTypes) {
+		Class<?>[] types = new Class<?>[additionalTypes.length + 1];
+		types[0] = type;
+		System.arraycopy(additionalTypes, 0, types, 1, additionalTypes.length);
+		return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), types, handler));
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the generation time of ConstrainedSequenceGenerator for growing list sizes and
+ * checks that the generated sequences satisfy the constraints.
+ *
+ * This is a benchmark and not part of the regular test run, remove the Ignore to run it.
+ * ConstrainedSequenceGeneratorTest covers the constraints and the Latin square.
+ */
+@Ignore("benchmark")
+public class ConstrainedSequenceGeneratorBenchmarkTest {
+
+	private static final int[] LIST_SIZES = { 100, 1000, 10000, 100000 };
+	private static final int CONDITIONS = 4;
+	private static final int MAX_CONSECUTIVE = 2;
+	private static final int WARMUP_RUNS = 5;
+
+	@Test
+	public void testGenerationTime() {
+		ConstrainedSequenceGenerator generator = new ConstrainedSequenceGenerator(MAX_CONSECUTIVE, true);
+		for (int size : LIST_SIZES) {
+			int[] conditions = new int[size];
+			for (int i = 0; i < size; i++) {
+				conditions[i] = i % CONDITIONS;
+			}
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				generator.generate(conditions, size, new Random(i));
+			}
+			long start = System.nanoTime();
+			int[] sequence = generator.generate(conditions, size, new Random(size));
+			long time = System.nanoTime() - start;
+			System.out.println(size + " elements, " + CONDITIONS + " conditions: " + (time / 1000) + "us");
+			checkSequence(conditions, sequence, true);
+		}
+	}
+
+	@Test
+	public void testGenerationTimeDistinctConditions() {
+		// each element is a condition of its own
+		ConstrainedSequenceGenerator generator = new ConstrainedSequenceGenerator(MAX_CONSECUTIVE, true);
+		for (int size : LIST_SIZES) {
+			int[] conditions = new int[size];
+			for (int i = 0; i < size; i++) {
+				conditions[i] = i;
+			}
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				generator.generate(conditions, size * 2, new Random(i));
+			}
+			long start = System.nanoTime();
+			int[] sequence = generator.generate(conditions, size * 2, new Random(size));
+			long time = System.nanoTime() - start;
+			System.out.println(size + " elements, distinct conditions, 2 iterations: " + (time / 1000) + "us");
+			checkSequence(conditions, sequence, false);
+		}
+	}
+
+	/** Checks the element counts, the maximum run length and optionally the transition balance of the CONDITIONS conditions. */
+	private void checkSequence(int[] conditions, int[] sequence, boolean checkTransitions) {
+		int size = conditions.length;
+		int[] elementCounts = new int[size];
+		int run = 0;
+		int last = -1;
+		for (int element : sequence) {
+			elementCounts[element]++;
+			int condition = conditions[element];
+			run = (condition == last) ? run + 1 : 1;
+			last = condition;
+			assertTrue("more than " + MAX_CONSECUTIVE + " consecutive trials", run <= MAX_CONSECUTIVE);
+		}
+		int expected = sequence.length / size;
+		for (int count : elementCounts) {
+			assertEquals(expected, count);
+		}
+
+		if (checkTransitions) {
+			int[][] transitions = new int[CONDITIONS][CONDITIONS];
+			for (int i = 1; i < sequence.length; i++) {
+				transitions[conditions[sequence[i - 1]]][conditions[sequence[i]]]++;
+			}
+			int min = Integer.MAX_VALUE;
+			int max = 0;
+			for (int[] from : transitions) {
+				for (int count : from) {
+					min = Math.min(min, count);
+					max = Math.max(max, count);
+				}
+			}
+			System.out.println("  transitions per condition pair: " + min + " to " + max);
+			assertTrue("unbalanced transitions", max - min <= Math.max(2, max / 10));
+		}
+	}
+}
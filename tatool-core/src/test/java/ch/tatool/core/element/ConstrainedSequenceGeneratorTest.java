@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the constraints of ConstrainedSequenceGenerator and the balanced Latin square.
+ */
+public class ConstrainedSequenceGeneratorTest {
+
+	@Test
+	public void testConstraints() {
+		Random seeds = new Random(0);
+		for (int conditionCount = 2; conditionCount <= 5; conditionCount++) {
+			for (int maxConsecutive = 0; maxConsecutive <= 3; maxConsecutive++) {
+				for (int iterations = 1; iterations <= 10; iterations++) {
+					// two elements per condition, used equally often so that the constraints can be satisfied
+					int[] conditions = new int[conditionCount * 2];
+					for (int i = 0; i < conditions.length; i++) {
+						conditions[i] = i % conditionCount;
+					}
+					int length = conditions.length * iterations;
+					ConstrainedSequenceGenerator generator = new ConstrainedSequenceGenerator(maxConsecutive, true);
+					long seed = seeds.nextLong();
+					int[] sequence = generator.generate(conditions, length, new Random(seed));
+					assertArrayEquals(sequence, generator.generate(conditions, length, new Random(seed)));
+					checkSequence(conditions, sequence, maxConsecutive);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBlocked() {
+		int[] conditions = { 0, 1, 2, 0, 1, 2 };
+		int[] blockOrder = { 2, 0, 1 };
+		int[] sequence = new ConstrainedSequenceGenerator().generateBlocked(conditions, 12, blockOrder, new Random(0));
+		checkSequence(conditions, sequence, 0);
+		for (int i = 0; i < sequence.length; i++) {
+			assertEquals(blockOrder[i / 4], conditions[sequence[i]]);
+		}
+	}
+
+	@Test
+	public void testLatinSquare() {
+		// even and odd number of conditions
+		for (int n = 2; n <= 7; n++) {
+			int rows = ConstrainedSequenceGenerator.getLatinSquareRowCount(n);
+			int[][] positions = new int[n][n];
+			int[][] transitions = new int[n][n];
+			for (int row = 0; row < rows; row++) {
+				int[] order = ConstrainedSequenceGenerator.getLatinSquareRow(n, row);
+				for (int i = 0; i < n; i++) {
+					positions[order[i]][i]++;
+					if (i > 0) {
+						transitions[order[i - 1]][order[i]]++;
+					}
+				}
+			}
+			for (int a = 0; a < n; a++) {
+				for (int b = 0; b < n; b++) {
+					assertEquals(rows / n, positions[a][b]);
+					assertEquals(a == b ? 0 : rows / n, transitions[a][b]);
+				}
+			}
+		}
+	}
+
+	/** Checks that the trials are distributed evenly over the elements and the run lengths. */
+	private void checkSequence(int[] conditions, int[] sequence, int maxConsecutive) {
+		int[] elementCounts = new int[conditions.length];
+		int run = 0;
+		int last = -1;
+		for (int element : sequence) {
+			elementCounts[element]++;
+			int condition = conditions[element];
+			run = (condition == last) ? run + 1 : 1;
+			last = condition;
+			assertTrue("more than " + maxConsecutive + " consecutive trials", maxConsecutive == 0 || run <= maxConsecutive);
+		}
+		int min = sequence.length / conditions.length;
+		for (int count : elementCounts) {
+			assertTrue("unbalanced elements", count == min || count == min + 1);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedList;
+
+import org.junit.Test;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.ElementSelector;
+import ch.tatool.element.ElementTree;
+import ch.tatool.element.Executable;
+import ch.tatool.exec.ExecutionContext;
+import ch.tatool.exec.Executor;
+
+/**
+ * Tests how DefaultExecutionStrategy finds the next executable element, with and without an
+ * ExecutionPlan.
+ */
+public class DefaultExecutionStrategyTest {
+
+	/** Executable that does nothing. */
+	static class TestExecutable extends NodeImpl implements Executable {
+		public void setExecutionContext(ExecutionContext context) {
+		}
+		public void execute() {
+		}
+		public void cancel() {
+		}
+	}
+
+	/** Selector that pushes the given elements in order, over and over again if repeat is set. */
+	static class PushingSelector implements ElementSelector {
+		private final Element[] elements;
+		private final boolean repeat;
+		int count;
+
+		PushingSelector(boolean repeat, Element... elements) {
+			this.repeat = repeat;
+			this.elements = elements;
+		}
+
+		public boolean selectNextElement(ExecutionContext context) {
+			if (!repeat && count >= elements.length) {
+				return false;
+			}
+			context.getExecutor().getExecutionTree().pushElement(elements[count % elements.length]);
+			count++;
+			return true;
+		}
+	}
+
+	/** Returns a context whose executor executes the given tree. */
+	static ExecutionContext createContext(Element root) {
+		final LinkedList<Element> stack = new LinkedList<Element>();
+		final Element[] rootElement = new Element[] { root };
+		final ElementTree tree = (ElementTree) createProxy(ElementTree.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getRootElement")) {
+					return rootElement[0];
+				} else if (name.equals("getElementStack")) {
+					return stack;
+				} else if (name.equals("pushElement")) {
+					stack.addLast((Element) args[0]);
+				} else if (name.equals("popElement")) {
+					return stack.removeLast();
+				} else if (name.equals("getTop")) {
+					return stack.isEmpty() ? null : stack.getLast();
+				}
+				return null;
+			}
+		});
+		final Executor executor = (Executor) createProxy(Executor.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return method.getName().equals("getExecutionTree") ? tree : null;
+			}
+		});
+		return (ExecutionContext) createProxy(ExecutionContext.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return method.getName().equals("getExecutor") ? executor : null;
+			}
+		});
+	}
+
+	private static Object createProxy(Class<?> type, InvocationHandler handler) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+	}
+
+	@Test
+	public void testNextExecutable() {
+		for (boolean compiled : new boolean[] { false, true }) {
+			ListElement root = new ListElement();
+			ExecutableElement first = new ExecutableElement(new TestExecutable());
+			ExecutableElement second = new ExecutableElement(new TestExecutable());
+			root.addChild(first);
+			root.addChild(second);
+			root.addHandler("not a selector");
+			root.addHandler(new PushingSelector(false, first, second));
+
+			DefaultExecutionStrategy strategy = new DefaultExecutionStrategy();
+			if (compiled) {
+				strategy.setExecutionPlan(ExecutionPlan.compile(root));
+			}
+			ExecutionContext context = createContext(root);
+			ElementTree tree = context.getExecutor().getExecutionTree();
+			assertTrue(strategy.updateElementStack(context));
+			assertSame(first, tree.getTop());
+
+			// executed elements are popped and the next one is selected
+			first.setProperty(Element.EXECUTED, Boolean.TRUE);
+			assertTrue(strategy.updateElementStack(context));
+			assertSame(second, tree.getTop());
+
+			second.setProperty(Element.EXECUTED, Boolean.TRUE);
+			assertFalse(strategy.updateElementStack(context));
+			assertTrue(tree.getElementStack().isEmpty());
+		}
+	}
+
+	@Test
+	public void testLoopGuard() {
+		// the selector keeps pushing an element without executable, which is popped again
+		ListElement root = new ListElement();
+		ListElement empty = new ListElement();
+		PushingSelector selector = new PushingSelector(true, empty);
+		root.addHandler(selector);
+
+		DefaultExecutionStrategy strategy = new DefaultExecutionStrategy();
+		ExecutionContext context = createContext(root);
+		assertFalse(strategy.updateElementStack(context));
+		assertTrue(selector.count > 0);
+		assertTrue(selector.count <= 10000);
+		assertEquals(root, context.getExecutor().getExecutionTree().getElementStack().get(0));
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import ch.tatool.element.ElementTree;
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Compares the stack updates of DefaultExecutionStrategy with and without an ExecutionPlan.
+ *
+ * The root element holds several handlers besides its selector, which the plain path checks
+ * on each step. Each round pops the executable element and lets the strategy select it again,
+ * the way the executor does between trials.
+ *
+ * This is a benchmark and not part of the regular test run, remove the Ignore to run it.
+ * DefaultExecutionStrategyTest covers the correctness of both paths.
+ */
+@Ignore("benchmark")
+public class ExecutionPlanBenchmarkTest {
+
+	private static final int HANDLERS_PER_ELEMENT = 8;
+	private static final int WARMUPS = 3;
+	private static final int WARMUP_ROUNDS = 200000;
+	private static final int ROUNDS = 500000;
+
+	@Test
+	public void testStackUpdates() {
+		for (int i = 0; i < WARMUPS; i++) {
+			run(false, WARMUP_ROUNDS);
+			run(true, WARMUP_ROUNDS);
+		}
+		long plainTime = run(false, ROUNDS);
+		long compiledTime = run(true, ROUNDS);
+		System.out.println("plain:    " + (plainTime / ROUNDS) + "ns per update");
+		System.out.println("compiled: " + (compiledTime / ROUNDS) + "ns per update");
+	}
+
+	private long run(boolean compiled, int rounds) {
+		ListElement root = new ListElement();
+		ExecutableElement leaf = new ExecutableElement(new DefaultExecutionStrategyTest.TestExecutable());
+		root.addChild(leaf);
+		for (int i = 0; i < HANDLERS_PER_ELEMENT; i++) {
+			root.addHandler(new Object());
+		}
+		DefaultExecutionStrategyTest.PushingSelector selector = new DefaultExecutionStrategyTest.PushingSelector(true, leaf);
+		root.addHandler(selector);
+
+		DefaultExecutionStrategy strategy = new DefaultExecutionStrategy();
+		if (compiled) {
+			strategy.setExecutionPlan(ExecutionPlan.compile(root));
+		}
+		ExecutionContext context = DefaultExecutionStrategyTest.createContext(root);
+		ElementTree tree = context.getExecutor().getExecutionTree();
+		assertTrue(strategy.updateElementStack(context));
+
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			tree.popElement();
+			strategy.updateElementStack(context);
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(rounds + 1, selector.count);
+		return time;
+	}
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.ElementSelector;
+
+/**
+ * Tests which elements an ExecutionPlan compiles and the selectors it returns for them.
+ */
+public class ExecutionPlanTest {
+
+	@Test
+	public void testSelectors() {
+		ListElement root = new ListElement();
+		IteratedListSelector first = new IteratedListSelector();
+		RandomListSelector second = new RandomListSelector();
+		root.addHandler(first);
+		root.addHandler("not a selector");
+		root.addHandler(second);
+
+		ListElement list = new ListElement();
+		ExecutableElement leaf = new ExecutableElement();
+		list.addChild(leaf);
+		root.addChild(list);
+
+		ExecutionPlan plan = ExecutionPlan.compile(root);
+		assertArrayEquals(new ElementSelector[] { first, second }, plan.getSelectors(root));
+		assertEquals(0, plan.getSelectors(list).length);
+		assertEquals(0, plan.getSelectors(leaf).length);
+	}
+
+	@Test
+	public void testUnknownElements() {
+		ListElement root = new ListElement();
+		root.addHandler(new IteratedListSelector());
+		LazyListElement lazy = new LazyListElement();
+		lazy.setElementFactory(new ElementFactory() {
+			public int getElementCount() {
+				return 3;
+			}
+			public Element createElement(int index) {
+				return new ExecutableElement();
+			}
+		});
+		root.addChild(lazy);
+
+		ExecutionPlan plan = ExecutionPlan.compile(root);
+		assertNotNull(plan.getSelectors(lazy));
+
+		// the children of a lazy list are not created by the compilation
+		assertEquals(0, lazy.getCachedChildCount());
+		assertNull(plan.getSelectors(lazy.getChild(0)));
+
+		// elements added later, e.g. temporary elements, are not compiled either
+		assertNull(plan.getSelectors(new ExecutableElement()));
+
+		plan.invalidate(root);
+		assertNull(plan.getSelectors(root));
+	}
+}
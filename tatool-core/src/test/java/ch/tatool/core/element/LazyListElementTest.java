@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.tatool.element.Element;
+import ch.tatool.element.ElementTree;
+import ch.tatool.exec.ExecutionContext;
+import ch.tatool.exec.Executor;
+
+/**
+ * Tests the on demand creation and the cache of LazyListElement, and LazyListSelector.
+ */
+public class LazyListElementTest {
+
+	/** Factory that counts the created elements. */
+	private static class CountingFactory implements ElementFactory {
+		private final int elementCount;
+		private int created;
+
+		private CountingFactory(int elementCount) {
+			this.elementCount = elementCount;
+		}
+
+		public int getElementCount() {
+			return elementCount;
+		}
+
+		public Element createElement(int index) {
+			created++;
+			ExecutableElement element = new ExecutableElement();
+			element.setLocalId("trial-" + index);
+			return element;
+		}
+	}
+
+	@Test
+	public void testLazyCreation() {
+		CountingFactory factory = new CountingFactory(1000);
+		LazyListElement list = createList(factory, 16);
+		assertEquals(1000, list.getChildren().size());
+		assertEquals(0, factory.created);
+
+		Element child = list.getChild(500);
+		assertEquals("trial-500", child.getLocalId());
+		assertSame(list, child.getParent());
+		assertSame(child, list.getChildren().get(500));
+		assertEquals(1, factory.created);
+	}
+
+	@Test
+	public void testCacheSize() {
+		CountingFactory factory = new CountingFactory(100);
+		LazyListElement list = createList(factory, 4);
+		Element first = list.getChild(0);
+		for (Element child : list.getChildren()) {
+			assertTrue(child != null);
+			assertTrue(list.getCachedChildCount() <= 4);
+		}
+		assertEquals(100, factory.created);
+
+		// the first element has been evicted and is created anew
+		assertNotSame(first, list.getChild(0));
+		assertEquals(101, factory.created);
+
+		// the most recently used elements are kept
+		Element recent = list.getChild(1);
+		list.getChild(2);
+		list.getChild(3);
+		assertSame(recent, list.getChild(1));
+		assertEquals(104, factory.created);
+
+		list.clearCache();
+		assertEquals(0, list.getCachedChildCount());
+	}
+
+	@Test
+	public void testSelector() {
+		CountingFactory factory = new CountingFactory(50);
+		LazyListElement list = createList(factory, 4);
+		LazyListSelector selector = new LazyListSelector(2);
+		selector.setRandomOrder(true);
+		selector.setPrefetchCount(2);
+		selector.initialize(list);
+
+		List<Element> stack = new ArrayList<Element>();
+		ExecutionContext context = createContext(stack);
+		int[] counts = new int[50];
+		int selections = 0;
+		while (selector.selectNextElement(context)) {
+			Element selected = stack.remove(stack.size() - 1);
+			// the selected element stays in the cache
+			int index = Integer.parseInt(selected.getLocalId().substring("trial-".length()));
+			assertSame(selected, list.getChild(index));
+			assertTrue(list.getCachedChildCount() <= 4);
+			counts[index]++;
+			selections++;
+		}
+		assertEquals(100, selections);
+		for (int count : counts) {
+			assertEquals(2, count);
+		}
+		assertEquals(2, selector.getExecutedIterations());
+		assertFalse(selector.selectNextElement(context));
+	}
+
+	private LazyListElement createList(ElementFactory factory, int cacheSize) {
+		LazyListElement list = new LazyListElement();
+		list.setElementFactory(factory);
+		list.setCacheSize(cacheSize);
+		return list;
+	}
+
+	/** Creates a context whose execution tree pushes onto the given stack. */
+	private ExecutionContext createContext(final List<Element> stack) {
+		final ElementTree tree = (ElementTree) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ElementTree.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("pushElement")) {
+					stack.add((Element) args[0]);
+					return null;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		final Executor executor = (Executor) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Executor.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getExecutionTree")) {
+					return tree;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+		return (ExecutionContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ExecutionContext.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getExecutor")) {
+					return executor;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
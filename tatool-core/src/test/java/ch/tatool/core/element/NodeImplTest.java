@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import ch.tatool.core.data.PropertyKey;
+
+/**
+ * Tests the cached ids and property keys of NodeImpl.
+ */
+public class NodeImplTest {
+
+	@Test
+	public void testPropertyKeys() {
+		ListElement parent = new ListElement();
+		parent.setLocalId("parent");
+		ExecutableElement child = new ExecutableElement();
+		child.setLocalId("child");
+		parent.addChild(child);
+
+		PropertyKey key = child.getPropertyKey("level");
+		assertEquals("parent.child", key.getNodeId());
+		assertEquals("level", key.getPropertyName());
+		assertSame(key, child.getPropertyKey("level"));
+		assertSame(key, child.getPropertyKey("level"));
+
+		// a new local id of the parent changes the keys of the child
+		parent.setLocalId("other");
+		PropertyKey renamed = child.getPropertyKey("level");
+		assertEquals("other.child", renamed.getNodeId());
+		assertSame(renamed, child.getPropertyKey("level"));
+
+		// as does a new parent
+		child.setParent(null);
+		assertEquals(new PropertyKey("child", "level"), child.getPropertyKey("level"));
+		child.setLocalId("renamed");
+		assertEquals(new PropertyKey("renamed", "level"), child.getPropertyKey("level"));
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import ch.tatool.element.Element;
+
+/**
+ * Compares the handler lookup of StackHandlerIndex with a linear scan over the stack.
+ *
+ * The stack is deep and each element holds several handlers, the searched type is only found
+ * at the root, which is the worst case for the scan. Each round pops and pushes the top element
+ * the way the execution strategy does between trials.
+ *
+ * This is a benchmark and not part of the regular test run, remove the Ignore to run it.
+ * StackHandlerIndexTest covers the correctness of the index.
+ */
+@Ignore("benchmark")
+public class StackHandlerIndexBenchmarkTest {
+
+	private static final int STACK_DEPTH = 20;
+	private static final int HANDLERS_PER_ELEMENT = 5;
+	private static final int WARMUP_ROUNDS = 20000;
+	private static final int ROUNDS = 200000;
+
+	/** Handler type only present at the root element. */
+	private static class RootHandler {
+	}
+
+	@Test
+	public void testLookup() {
+		List<Element> stack = new ArrayList<Element>();
+		for (int i = 0; i < STACK_DEPTH; i++) {
+			ListElement element = new ListElement();
+			for (int j = 0; j < HANDLERS_PER_ELEMENT; j++) {
+				element.addHandler(new Object());
+			}
+			if (i == 0) {
+				element.addHandler(new RootHandler());
+			}
+			stack.add(element);
+		}
+		Element[] alternatives = new Element[] { stack.get(STACK_DEPTH - 1), new ListElement() };
+
+		StackHandlerIndex index = new StackHandlerIndex();
+		assertArrayEquals(scan(stack, RootHandler.class), index.getHandlers(stack, RootHandler.class));
+
+		runScan(stack, alternatives, WARMUP_ROUNDS);
+		runIndex(index, stack, alternatives, WARMUP_ROUNDS);
+		long scanTime = runScan(stack, alternatives, ROUNDS);
+		long indexTime = runIndex(index, stack, alternatives, ROUNDS);
+		System.out.println("linear scan: " + (scanTime / ROUNDS) + "ns per lookup");
+		System.out.println("index:       " + (indexTime / ROUNDS) + "ns per lookup");
+
+		assertArrayEquals(scan(stack, RootHandler.class), index.getHandlers(stack, RootHandler.class));
+	}
+
+	private long runScan(List<Element> stack, Element[] alternatives, int rounds) {
+		long start = System.nanoTime();
+		int found = 0;
+		for (int i = 0; i < rounds; i++) {
+			swapTop(stack, alternatives[i % 2]);
+			found += scan(stack, RootHandler.class).length;
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(rounds, found);
+		return time;
+	}
+
+	private long runIndex(StackHandlerIndex index, List<Element> stack, Element[] alternatives, int rounds) {
+		long start = System.nanoTime();
+		int found = 0;
+		for (int i = 0; i < rounds; i++) {
+			swapTop(stack, alternatives[i % 2]);
+			found += index.getHandlers(stack, RootHandler.class).length;
+		}
+		long time = System.nanoTime() - start;
+		assertEquals(rounds, found);
+		return time;
+	}
+
+	private void swapTop(List<Element> stack, Element top) {
+		stack.remove(stack.size() - 1);
+		stack.add(top);
+	}
+
+	/** The lookup as done by ElementUtils before the index. */
+	private Object[] scan(List<Element> stack, Class<?> type) {
+		List<Object> handlers = new ArrayList<Object>();
+		for (int i = stack.size() - 1; i >= 0; i--) {
+			for (Object handler : stack.get(i).getHandlers()) {
+				if (type.isAssignableFrom(handler.getClass())) {
+					handlers.add(handler);
+				}
+			}
+		}
+		return handlers.toArray();
+	}
+}
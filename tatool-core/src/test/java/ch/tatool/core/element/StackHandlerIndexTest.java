@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ch.tatool.element.Element;
+
+/**
+ * Tests that StackHandlerIndex follows changes of the stack and of the handlers.
+ */
+public class StackHandlerIndexTest {
+
+	private static class Handler {
+	}
+
+	@Test
+	public void testPushAndPop() {
+		Handler rootHandler = new Handler();
+		Handler childHandler = new Handler();
+		ListElement root = createElement(rootHandler);
+		ListElement child = createElement(childHandler);
+		ListElement other = createElement();
+
+		List<Element> stack = new ArrayList<Element>();
+		StackHandlerIndex index = new StackHandlerIndex();
+		assertArrayEquals(new Object[0], index.getHandlers(stack, Handler.class));
+
+		stack.add(root);
+		assertArrayEquals(new Object[] { rootHandler }, index.getHandlers(stack, Handler.class));
+		stack.add(child);
+		assertArrayEquals(new Object[] { childHandler, rootHandler }, index.getHandlers(stack, Handler.class));
+
+		// replace the top element
+		stack.remove(1);
+		stack.add(other);
+		assertArrayEquals(new Object[] { rootHandler }, index.getHandlers(stack, Handler.class));
+
+		// replace several elements at once
+		stack.clear();
+		stack.add(other);
+		stack.add(root);
+		stack.add(child);
+		assertArrayEquals(new Object[] { childHandler, rootHandler }, index.getHandlers(stack, Handler.class));
+
+		stack.remove(2);
+		stack.remove(1);
+		assertArrayEquals(new Object[0], index.getHandlers(stack, Handler.class));
+	}
+
+	@Test
+	public void testHandlerChanges() {
+		Handler rootHandler = new Handler();
+		Handler childHandler = new Handler();
+		ListElement root = createElement(rootHandler);
+		ListElement child = createElement(childHandler);
+
+		List<Element> stack = new ArrayList<Element>();
+		stack.add(root);
+		stack.add(child);
+		StackHandlerIndex index = new StackHandlerIndex();
+		assertArrayEquals(new Object[] { childHandler, rootHandler }, index.getHandlers(stack, Handler.class));
+
+		// replace a handler below the top, keeping the number of handlers
+		Handler replacement = new Handler();
+		root.removeHandler(rootHandler);
+		root.addHandler(replacement);
+		assertArrayEquals(new Object[] { childHandler, replacement }, index.getHandlers(stack, Handler.class));
+
+		// replace the handler list of the top element by one of the same size
+		Handler other = new Handler();
+		List<Object> handlers = new ArrayList<Object>();
+		handlers.add(other);
+		child.setHandlers(handlers);
+		assertArrayEquals(new Object[] { other, replacement }, index.getHandlers(stack, Handler.class));
+
+		child.addHandler(childHandler);
+		assertArrayEquals(new Object[] { other, childHandler, replacement }, index.getHandlers(stack, Handler.class));
+	}
+
+	private ListElement createElement(Object... handlers) {
+		ListElement element = new ListElement();
+		for (Object handler : handlers) {
+			element.addHandler(handler);
+		}
+		return element;
+	}
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+
+/**
+ * Tests the elements created by TemplateElementFactory.
+ */
+public class TemplateElementFactoryTest {
+
+	/** Template element with a parameter. */
+	public static class TrialElement extends ExecutableElement {
+		private String stimulus;
+
+		public String getStimulus() {
+			return stimulus;
+		}
+
+		public void setStimulus(String stimulus) {
+			this.stimulus = stimulus;
+		}
+	}
+
+	@Test
+	public void testCreateElement() {
+		TemplateElementFactory factory = new TemplateElementFactory();
+		factory.setBeanFactory(createBeanFactory());
+		factory.setTemplateBeanName("trial");
+		factory.setParameterTable("stimulus\nred\n\ngreen\n");
+		assertEquals(2, factory.getElementCount());
+
+		TrialElement first = (TrialElement) factory.createElement(0);
+		TrialElement second = (TrialElement) factory.createElement(1);
+		assertNotSame(first, second);
+		assertEquals("red", first.getStimulus());
+		assertEquals("green", second.getStimulus());
+
+		// each element gets its own id
+		assertEquals("trial-0", first.getLocalId());
+		assertEquals("trial-1", second.getLocalId());
+	}
+
+	@Test
+	public void testSeparatorAfterTable() {
+		TemplateElementFactory factory = new TemplateElementFactory();
+		factory.setBeanFactory(createBeanFactory());
+		factory.setTemplateBeanName("trial");
+		// Spring sets the properties in any order, the table is only parsed on first use
+		factory.setParameterTable("stimulus;localId\nred,dark;first\ngreen;second\n");
+		factory.setSeparator(";");
+		assertEquals(2, factory.getElementCount());
+
+		TrialElement first = (TrialElement) factory.createElement(0);
+		assertEquals("red,dark", first.getStimulus());
+		assertEquals("first", first.getLocalId());
+		assertEquals("second", factory.createElement(1).getLocalId());
+	}
+
+	/** Creates a bean factory returning a new, Spring named TrialElement for each lookup. */
+	private BeanFactory createBeanFactory() {
+		return (BeanFactory) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { BeanFactory.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("isPrototype")) {
+					return Boolean.TRUE;
+				}
+				if (method.getName().equals("getBean")) {
+					TrialElement element = new TrialElement();
+					element.setBeanName((String) args[0]);
+					return element;
+				}
+				throw new UnsupportedOperationException(method.getName());
+			}
+		});
+	}
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.element;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that TrialSequenceGenerator reproduces its sequences and keeps the constraints.
+ */
+public class TrialSequenceGeneratorTest {
+
+	@Test
+	public void testSameSeed() {
+		for (boolean balanced : new boolean[] { true, false }) {
+			TrialSequenceGenerator generator = new TrialSequenceGenerator(2, balanced);
+			int[] first = generator.generate(5, 200, new Random(42));
+			int[] second = generator.generate(5, 200, new Random(42));
+			assertArrayEquals(first, second);
+		}
+	}
+
+	@Test
+	public void testConstraints() {
+		Random seeds = new Random(0);
+		for (int elementCount = 1; elementCount <= 6; elementCount++) {
+			for (int maxRepeats = 0; maxRepeats <= 3; maxRepeats++) {
+				for (int length = 1; length <= 40; length++) {
+					long seed = seeds.nextLong();
+					checkBalanced(elementCount, length, maxRepeats, seed);
+					if (maxRepeats == 0 || elementCount > 1) {
+						int[] sequence = new TrialSequenceGenerator(maxRepeats, false).generate(elementCount, length, new Random(seed));
+						assertEquals(length, sequence.length);
+						checkRuns(sequence, maxRepeats);
+					}
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInfeasible() {
+		// a single element cannot occur 3 times with at most 2 repeats
+		new TrialSequenceGenerator(2, true).generate(1, 3, new Random(0));
+	}
+
+	/** Checks a balanced sequence if the constraints can be satisfied. */
+	private void checkBalanced(int elementCount, int length, int maxRepeats, long seed) {
+		int[] counts = new int[elementCount];
+		int maxCount = (length + elementCount - 1) / elementCount;
+		if (maxRepeats > 0 && maxCount > (long) maxRepeats * (length - maxCount + 1)) {
+			return;
+		}
+		int[] sequence = new TrialSequenceGenerator(maxRepeats, true).generate(elementCount, length, new Random(seed));
+		assertEquals(length, sequence.length);
+		for (int index : sequence) {
+			counts[index]++;
+		}
+		for (int count : counts) {
+			assertTrue("unbalanced counts", count == length / elementCount || count == maxCount);
+		}
+		checkRuns(sequence, maxRepeats);
+	}
+
+	private void checkRuns(int[] sequence, int maxRepeats) {
+		int run = 0;
+		int last = -1;
+		for (int index : sequence) {
+			run = (index == last) ? run + 1 : 1;
+			last = index;
+			assertTrue("more than " + maxRepeats + " repeats", maxRepeats == 0 || run <= maxRepeats);
+		}
+	}
+}
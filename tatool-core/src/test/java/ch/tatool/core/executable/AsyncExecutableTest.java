@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import ch.tatool.core.element.handler.timeout.DefaultTimeoutHandler;
+import ch.tatool.exec.ExecutionContext;
+
+/**
+ * Tests the completion of AsyncExecutable executions by complete, cancel and fail.
+ */
+public class AsyncExecutableTest {
+
+	/** Executable whose behaviour at start is defined by the test. */
+	private static class TestExecutable extends AsyncExecutable {
+		private final int action;
+		private DefaultTimeoutHandler timeoutHandler;
+		private final CountDownLatch started = new CountDownLatch(1);
+		private volatile ExecutionFuture future;
+		private volatile int cancelCount;
+		private volatile boolean cancelledOnAWT;
+		private volatile boolean doneWhileCancelling;
+		private volatile boolean completedWhileCancelling;
+
+		static final int COMPLETE = 0;
+		static final int WAIT = 1;
+		static final int FAIL = 2;
+
+		private TestExecutable(int action) {
+			this.action = action;
+		}
+
+		protected void startExecutionAWT(ExecutionFuture future) {
+			this.future = future;
+			if (timeoutHandler != null) {
+				timeoutHandler.startTimeout(createContext(this));
+			}
+			started.countDown();
+			if (action == COMPLETE) {
+				future.complete();
+			} else if (action == FAIL) {
+				throw new IllegalStateException("start failed");
+			}
+		}
+
+		protected void cancelExecutionAWT() {
+			cancelCount++;
+			cancelledOnAWT = SwingUtilities.isEventDispatchThread();
+			doneWhileCancelling = future.isDone();
+			// a response arriving during the cancellation must not finish the execution
+			completedWhileCancelling = future.complete();
+		}
+	}
+
+	/** Returns a context with the given executable as active executable. */
+	private static ExecutionContext createContext(final AsyncExecutable executable) {
+		return (ExecutionContext) Proxy.newProxyInstance(ExecutionContext.class.getClassLoader(),
+				new Class<?>[] { ExecutionContext.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						if (method.getName().equals("getActiveExecutable")) {
+							return executable;
+						}
+						return null;
+					}
+				});
+	}
+
+	@Test
+	public void testComplete() {
+		TestExecutable executable = new TestExecutable(TestExecutable.COMPLETE);
+		executable.execute();
+
+		ExecutionFuture future = executable.getCurrentExecution();
+		assertTrue(future.isDone());
+		assertFalse(future.isCancelled());
+		assertFalse(future.isFailed());
+
+		// cancelling a finished execution has no effect
+		executable.cancel();
+		assertFalse(future.isCancelled());
+		assertEquals(0, executable.cancelCount);
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		final TestExecutable executable = new TestExecutable(TestExecutable.WAIT);
+		Thread canceller = new Thread() {
+			public void run() {
+				try {
+					executable.started.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return;
+				}
+				executable.cancel();
+				executable.cancel();
+			}
+		};
+		canceller.start();
+		executable.execute();
+		canceller.join();
+
+		ExecutionFuture future = executable.getCurrentExecution();
+		assertTrue(future.isDone());
+		assertTrue(future.isCancelled());
+		assertEquals(1, executable.cancelCount);
+		assertTrue(executable.cancelledOnAWT);
+		assertFalse(executable.doneWhileCancelling);
+		assertFalse(executable.completedWhileCancelling);
+	}
+
+	@Test
+	public void testFail() {
+		TestExecutable executable = new TestExecutable(TestExecutable.FAIL);
+		try {
+			executable.execute();
+			throw new AssertionError("execute should rethrow the failure");
+		} catch (RuntimeException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+
+		ExecutionFuture future = executable.getCurrentExecution();
+		assertTrue(future.isDone());
+		assertTrue(future.isFailed());
+		assertFalse(future.isCancelled());
+		assertFalse(future.complete());
+	}
+
+	@Test
+	public void testFailureBeforeDone() throws InterruptedException {
+		final ExecutionFuture future = new ExecutionFuture();
+		final IllegalStateException cause = new IllegalStateException("failed");
+		Thread failing = new Thread() {
+			public void run() {
+				future.fail(cause);
+			}
+		};
+		failing.start();
+		// the failure is set as soon as the execution counts as failed
+		while (!future.isDone()) {
+			Thread.yield();
+		}
+		assertTrue(future.isFailed());
+		assertSame(cause, future.getFailure());
+		failing.join();
+
+		// a later failure does not replace the first one
+		assertFalse(future.fail(new IllegalStateException("too late")));
+		assertSame(cause, future.getFailure());
+	}
+
+	@Test
+	public void testTimeoutCancelledOnCompletion() throws InterruptedException {
+		final TestExecutable executable = new TestExecutable(TestExecutable.WAIT);
+		DefaultTimeoutHandler timeoutHandler = new DefaultTimeoutHandler();
+		timeoutHandler.setDefaultTimerDuration(10000);
+		executable.timeoutHandler = timeoutHandler;
+		Thread responder = new Thread() {
+			public void run() {
+				try {
+					executable.started.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return;
+				}
+				executable.future.complete();
+			}
+		};
+		responder.start();
+		executable.execute();
+		responder.join();
+
+		// the executable never called cancelTimeout, the completion of the future did
+		assertFalse(executable.getCurrentExecution().isCancelled());
+		long reactionTime = timeoutHandler.getReactionTime();
+		assertTrue(reactionTime >= 0 && reactionTime < 10000);
+	}
+}
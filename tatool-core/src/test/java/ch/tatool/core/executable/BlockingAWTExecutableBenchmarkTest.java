@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the stimulus onset latency of BlockingAWTExecutable with and without asyncDispatch,
+ * with an idle and with a busy awt thread.
+ *
+ * The onset latency is the time between the executor calling execute() and startExecutionAWT
+ * running on the awt thread. Each execution is then cancelled from another thread, the way a
+ * timeout handler does, and the time the cancelling thread spends in cancel() is measured too.
+ * The waiting cancel runs cancel the way BlockingAWTExecutable did before cancellations were
+ * posted, waiting for cancelExecutionAWT with invokeAndWait. For the busy runs a load thread
+ * keeps the awt queue filled with tasks of BUSY_TASK_MILLIS.
+ *
+ * This is a benchmark and not part of the regular test run, remove the Ignore to run it.
+ */
+@Ignore("benchmark")
+public class BlockingAWTExecutableBenchmarkTest {
+
+	private static final int WARMUP_RUNS = 100;
+	private static final int RUNS = 500;
+	private static final long BUSY_TASK_MILLIS = 2;
+
+	@Test
+	public void testOnsetLatency() throws Exception {
+		report("idle awt thread, invokeAndWait dispatch, waiting cancel", measure(false, false, true));
+		report("idle awt thread, invokeAndWait dispatch                ", measure(false, false, false));
+		report("idle awt thread, async dispatch                        ", measure(true, false, false));
+		report("busy awt thread, invokeAndWait dispatch, waiting cancel", measure(false, true, true));
+		report("busy awt thread, invokeAndWait dispatch                ", measure(false, true, false));
+		report("busy awt thread, async dispatch                        ", measure(true, true, false));
+	}
+
+	private Result measure(boolean asyncDispatch, boolean busy, boolean waitingCancel) throws Exception {
+		BenchmarkExecutable executable = new BenchmarkExecutable(waitingCancel);
+		executable.setAsyncDispatch(asyncDispatch);
+		AwtLoad load = busy ? new AwtLoad() : null;
+		if (load != null) {
+			load.start();
+		}
+		try {
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				executable.execute();
+				executable.canceller.join();
+			}
+			Result result = new Result();
+			for (int i = 0; i < RUNS; i++) {
+				long start = System.nanoTime();
+				executable.execute();
+				executable.canceller.join();
+				result.onset[i] = executable.onset - start;
+				result.cancel[i] = executable.cancelCallNanos;
+			}
+			assertEquals(WARMUP_RUNS + RUNS, executable.cancelCount.get());
+			return result;
+		} finally {
+			if (load != null) {
+				load.stopLoad();
+			}
+		}
+	}
+
+	private void report(String name, Result result) {
+		System.out.println(name + ": onset " + summary(result.onset) + "; cancel() call " + summary(result.cancel));
+	}
+
+	private String summary(long[] latencies) {
+		long[] sorted = latencies.clone();
+		Arrays.sort(sorted);
+		long sum = 0;
+		for (long latency : sorted) {
+			sum += latency;
+		}
+		return "mean=" + (sum / sorted.length / 1000) + "us"
+			+ ", median=" + (sorted[sorted.length / 2] / 1000) + "us"
+			+ ", p99=" + (sorted[sorted.length * 99 / 100] / 1000) + "us";
+	}
+
+	private static class Result {
+		private final long[] onset = new long[RUNS];
+		private final long[] cancel = new long[RUNS];
+	}
+
+	/** Keeps two tasks of BUSY_TASK_MILLIS queued on the awt thread. */
+	private static class AwtLoad extends Thread {
+		private final AtomicInteger queued = new AtomicInteger();
+		private volatile boolean running = true;
+
+		private AwtLoad() {
+			setDaemon(true);
+		}
+
+		public void run() {
+			while (running) {
+				if (queued.get() < 2) {
+					queued.incrementAndGet();
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							long end = System.nanoTime() + BUSY_TASK_MILLIS * 1000000L;
+							while (System.nanoTime() < end) {
+								// simulate painting or layout work
+							}
+							queued.decrementAndGet();
+						}
+					});
+				} else {
+					Thread.yield();
+				}
+			}
+		}
+
+		private void stopLoad() throws InterruptedException {
+			running = false;
+			join();
+		}
+	}
+
+	/** Executable that records the onset and gets cancelled from a separate thread. */
+	private static class BenchmarkExecutable extends BlockingAWTExecutable {
+		private final boolean waitingCancel;
+		private volatile long onset;
+		private volatile long cancelCallNanos;
+		private volatile Thread canceller;
+		private final AtomicInteger cancelCount = new AtomicInteger();
+
+		private BenchmarkExecutable(boolean waitingCancel) {
+			super("benchmark");
+			this.waitingCancel = waitingCancel;
+		}
+
+		@Override
+		protected void startExecutionAWT() {
+			onset = System.nanoTime();
+			canceller = new Thread() {
+				public void run() {
+					long start = System.nanoTime();
+					if (waitingCancel) {
+						// cancel on the calling thread, waiting for the awt thread
+						if (getFinishExecutionLock()) {
+							cancelExecution();
+							finishExecution();
+						}
+					} else {
+						cancel();
+					}
+					cancelCallNanos = System.nanoTime() - start;
+				}
+			};
+			canceller.start();
+		}
+
+		@Override
+		protected void cancelExecutionAWT() {
+			cancelCount.incrementAndGet();
+		}
+	}
+}
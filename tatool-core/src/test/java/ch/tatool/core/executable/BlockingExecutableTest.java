@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Michael Ruflin, Andr Locher, Claudia von Bastian.
+ * 
+ * This file is part of Tatool.
+ * 
+ * Tatool is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published 
+ * by the Free Software Foundation, either version 3 of the License, or 
+ * (at your option) any later version.
+ * 
+ * Tatool is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Tatool. If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package ch.tatool.core.executable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests the finish execution handoff of BlockingExecutable.
+ */
+public class BlockingExecutableTest {
+
+	/** Executable that runs the given task when the execution starts. */
+	private static class TestExecutable extends BlockingExecutable {
+		private Runnable start;
+		private final AtomicInteger cancelCount = new AtomicInteger();
+
+		protected void startExecution() {
+			start.run();
+		}
+
+		protected void cancelExecution() {
+			cancelCount.incrementAndGet();
+		}
+
+		/** Finishes the execution if the lock is granted, returns whether it was. */
+		private boolean respond() {
+			if (getFinishExecutionLock()) {
+				finishExecution();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/** Starts a thread that waits for the latch and then runs the task. */
+	private static Thread startThread(final CountDownLatch go, final Runnable task) {
+		Thread thread = new Thread() {
+			public void run() {
+				try {
+					go.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					return;
+				}
+				task.run();
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	@Test
+	public void testFinishBeforePark() {
+		final TestExecutable executable = new TestExecutable();
+		executable.start = new Runnable() {
+			public void run() {
+				// finished on the execute() caller thread, before it parks
+				assertTrue(executable.respond());
+			}
+		};
+		executable.execute();
+		assertTrue(executable.getLastResumeLatencyNanos() >= 0);
+
+		// the executable can be executed again
+		executable.execute();
+		assertFalse(executable.getFinishExecutionLock());
+	}
+
+	@Test
+	public void testCompetingLockCallers() throws InterruptedException {
+		final TestExecutable executable = new TestExecutable();
+		final AtomicInteger winners = new AtomicInteger();
+		final AtomicInteger rejected = new AtomicInteger();
+		final Thread[] threads = new Thread[8];
+		executable.start = new Runnable() {
+			public void run() {
+				CountDownLatch go = new CountDownLatch(1);
+				for (int i = 0; i < threads.length; i++) {
+					threads[i] = startThread(go, new Runnable() {
+						public void run() {
+							if (executable.getFinishExecutionLock()) {
+								winners.incrementAndGet();
+								executable.finishExecution();
+							} else {
+								try {
+									executable.finishExecution();
+								} catch (IllegalStateException e) {
+									rejected.incrementAndGet();
+								}
+							}
+						}
+					});
+				}
+				go.countDown();
+			}
+		};
+		executable.execute();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(1, winners.get());
+		assertEquals(threads.length - 1, rejected.get());
+	}
+
+	@Test
+	public void testCancelRacingResponse() throws InterruptedException {
+		final TestExecutable executable = new TestExecutable();
+		final AtomicInteger responses = new AtomicInteger();
+		final Thread[] threads = new Thread[2];
+		executable.start = new Runnable() {
+			public void run() {
+				CountDownLatch go = new CountDownLatch(1);
+				threads[0] = startThread(go, new Runnable() {
+					public void run() {
+						executable.cancel();
+					}
+				});
+				threads[1] = startThread(go, new Runnable() {
+					public void run() {
+						if (executable.respond()) {
+							responses.incrementAndGet();
+						}
+					}
+				});
+				go.countDown();
+			}
+		};
+		int runs = 200;
+		for (int i = 0; i < runs; i++) {
+			executable.execute();
+			threads[0].join();
+			threads[1].join();
+			assertEquals(i + 1, executable.cancelCount.get() + responses.get());
+		}
+	}
+
+	@Test
+	public void testFailExecution() throws InterruptedException {
+		final TestExecutable executable = new TestExecutable();
+		final IllegalStateException failure = new IllegalStateException("failed");
+		final Thread[] threads = new Thread[1];
+		executable.start = new Runnable() {
+			public void run() {
+				threads[0] = startThread(new CountDownLatch(0), new Runnable() {
+					public void run() {
+						executable.failExecution(failure);
+					}
+				});
+			}
+		};
+		try {
+			executable.execute();
+			fail("execute should rethrow the failure");
+		} catch (IllegalStateException e) {
+			assertSame(failure, e);
+		}
+		threads[0].join();
+
+		// the failure is only thrown once, a finish after a failure has no effect
+		executable.start = new Runnable() {
+			public void run() {
+				assertTrue(executable.respond());
+				executable.failExecution(new IllegalStateException("too late"));
+			}
+		};
+		executable.execute();
+	}
+}